@@ -0,0 +1,101 @@
+package study.querydsl.bench;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.entity.SequenceIds;
+import study.querydsl.event.BulkChangedEvent;
+import study.querydsl.repository.UserNameTrigramIndex;
+import study.querydsl.seed.MemberSeeder;
+import study.querydsl.seed.SeedProperties;
+import study.querydsl.seed.SequenceBlockAllocator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// 벤치마크용 스프링 컨텍스트 + 인메모리 H2
+// 웹 서버 / InitMember(local 프로필) / SQL 로그 없이 띄우고, MemberSeeder(회원) / JDBC batch(사용자) 로 데이터를 채움
+public class BenchmarkDatabase implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkDatabase(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    public static BenchmarkDatabase start(String... properties) {
+        // application.yml 보다 우선하도록 커맨드라인 인자로 넘김
+        List<String> args = new ArrayList<>();
+        args.add("--spring.profiles.active=bench");
+        args.add("--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        args.add("--spring.jpa.hibernate.ddl-auto=create");
+        args.add("--spring.main.banner-mode=off");
+        args.add("--spring.jpa.properties.hibernate.use_sql_comments=false");
+        args.add("--logging.level.root=warn");
+        args.add("--logging.level.org.hibernate.SQL=warn");
+        args.add("--decorator.datasource.p6spy.enable-logging=false");
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+        return new BenchmarkDatabase(context);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    // teamA, teamB ... 팀을 만들고 member0 ~ member{n-1} 을 팀에 번갈아 배정 (나이 = i % 100)
+    public void seedMembers(int members, int teams) {
+        SeedProperties properties = new SeedProperties();
+        properties.setMembers(members);
+        properties.setTeams(teams);
+        properties.setChunkSize(10_000);
+        getBean(MemberSeeder.class).seed(properties);
+        getBean(JdbcTemplate.class).execute("analyze");
+    }
+
+    // users_entity 에 무작위 소문자 이름(8~12글자) 사용자를 채움 (같은 seed 면 같은 데이터)
+    // JDBC 로 넣으므로 BulkChangedEvent 를 발행해서 이름 색인을 다시 만들게 하고, 다 만들어질 때까지 기다림
+    public void seedUsers(int users, long seed) throws InterruptedException {
+        JdbcTemplate jdbcTemplate = getBean(JdbcTemplate.class);
+        SequenceBlockAllocator allocator = new SequenceBlockAllocator(jdbcTemplate);
+        Random random = new Random(seed);
+        for (int from = 0; from < users; from += 10_000) {
+            int size = Math.min(10_000, users - from);
+            long[] ids = allocator.allocate(SequenceIds.USERS_SEQ, size);
+            List<Object[]> rows = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                rows.add(new Object[]{ids[i], randomName(random), random.nextInt(100)});
+            }
+            jdbcTemplate.batchUpdate("insert into users_entity (user_id, user_name, user_age) values (?, ?, ?)", rows);
+        }
+        jdbcTemplate.execute("analyze");
+
+        context.publishEvent(new BulkChangedEvent("users_entity"));
+        UserNameTrigramIndex index = getBean(UserNameTrigramIndex.class);
+        for (int i = 0; i < 1200 && !index.isReady(); i++) {
+            Thread.sleep(100);
+        }
+    }
+
+    private static String randomName(Random random) {
+        char[] name = new char[8 + random.nextInt(5)];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(name);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
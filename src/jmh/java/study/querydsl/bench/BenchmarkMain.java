@@ -0,0 +1,25 @@
+package study.querydsl.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// ./gradlew jmh 진입점
+// JMH 커맨드라인 옵션을 그대로 받고, GC 프로파일러(할당률)는 항상 켜고
+// 결과는 (따로 지정하지 않으면) build/jmh/results.json 으로 남겨서 이전 결과와 비교할 수 있게 함
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+        if (!commandLine.getResult().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON).result("build/jmh/results.json");
+        }
+        new Runner(options.build()).run();
+    }
+}
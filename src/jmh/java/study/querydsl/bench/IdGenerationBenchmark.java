@@ -0,0 +1,90 @@
+package study.querydsl.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+
+// em.persist insert 처리량 : pooled-lo 시퀀스(Member) vs insert 마다 시퀀스 조회(LegacyIdMember)
+// 한 번의 호출 = 한 트랜잭션에서 ROWS 건 persist (100 건마다 flush / clear), 결과는 초당 row 수
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class IdGenerationBenchmark {
+
+    private static final int ROWS = 1000;
+    private static final int FLUSH_INTERVAL = 100;
+
+    BenchmarkDatabase database;
+    EntityManager em;
+    TransactionTemplate transactionTemplate;
+    Long teamId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start();
+        em = database.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(database.getBean(PlatformTransactionManager.class));
+        teamId = transactionTemplate.execute(status -> {
+            Team team = new Team("teamA");
+            em.persist(team);
+            return team.getId();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void pooledSequence() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS; i++) {
+                // changeTeam 은 team.members 를 초기화하므로 연관관계는 setter 로만 설정
+                Member member = new Member("member" + i, i % 100);
+                member.setTeam(em.getReference(Team.class, teamId));
+                em.persist(member);
+                flushAndClear(i);
+            }
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void sequencePerInsert() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS; i++) {
+                em.persist(new LegacyIdMember("member" + i, i % 100, em.getReference(Team.class, teamId)));
+                flushAndClear(i);
+            }
+        });
+    }
+
+    private void flushAndClear(int i) {
+        if ((i + 1) % FLUSH_INTERVAL == 0) {
+            em.flush();
+            em.clear();
+        }
+    }
+}
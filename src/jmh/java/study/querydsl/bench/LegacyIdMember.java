@@ -0,0 +1,38 @@
+package study.querydsl.bench;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import study.querydsl.entity.Team;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+
+// 변경 전 Member 의 id 매핑 (@GeneratedValue 기본값 -> hibernate_sequence, insert 마다 시퀀스 조회)
+// IdGenerationBenchmark 비교용, 벤치마크 클래스패스에서만 엔티티로 등록됨
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class LegacyIdMember {
+
+    @Id @GeneratedValue
+    private Long id;
+
+    private String username;
+
+    private int age;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "team_id")
+    private Team team;
+
+    public LegacyIdMember(String username, int age, Team team) {
+        this.username = username;
+        this.age = age;
+        this.team = team;
+    }
+}
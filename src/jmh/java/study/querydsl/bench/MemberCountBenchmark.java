@@ -0,0 +1,99 @@
+package study.querydsl.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.dto.QMemberTeamDTO;
+import study.querydsl.repository.MemberCountCache;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchEngine;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+// 같은 페이지 (member join team, 전체 건수 포함) 를 만드는 세 가지 방법
+// - fetchResults : QueryDSL fetchResults() 를 직접 호출 (처음 searchPageSimple 의 구현)
+// - contentAndCount : searchPageSimple, 캐시 없이 content + count 쿼리를 매번 실행
+// - contentAndCachedCount : content 는 매번, count 는 MemberCountCache 를 거침 (TTL 안에서는 count 쿼리 없음)
+// 첫 페이지 + 결과가 한 페이지보다 많은 조건이라 세 방식 모두 count 가 필요함
+// (MemberDataset 은 count 캐시를 꺼 두므로 contentAndCachedCount 의 캐시는 여기서 따로 만듦)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MemberCountBenchmark {
+
+    JPAQueryFactory queryFactory;
+    MemberRepository memberRepository;
+    MemberSearchEngine searchEngine;
+    MemberCountCache countCache;
+    MemberSearchCondition condition;
+    PageRequest pageRequest;
+
+    @Setup(Level.Trial)
+    public void setUp(MemberDataset dataset) {
+        queryFactory = new JPAQueryFactory(dataset.database.getBean(EntityManager.class));
+        memberRepository = dataset.database.getBean(MemberRepository.class);
+        searchEngine = dataset.database.getBean(MemberSearchEngine.class);
+        countCache = new MemberCountCache(Duration.ofMinutes(10), 10_000, new SimpleMeterRegistry());
+        condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        pageRequest = PageRequest.of(0, 20);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public Page<MemberTeamDTO> fetchResults(MemberDataset dataset) {
+        return dataset.readOnly.execute(status -> {
+            QueryResults<MemberTeamDTO> results = queryFactory
+                    .select(new QMemberTeamDTO(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            member.team.id.as("teamId"),
+                            member.team.name.as("teamName")))
+                    .from(member)
+                    .join(member.team, team)
+                    .where(member.age.goe(condition.getAgeGoe()))
+                    .offset(pageRequest.getOffset())
+                    .limit(pageRequest.getPageSize())
+                    .fetchResults();
+            return new PageImpl<>(results.getResults(), pageRequest, results.getTotal());
+        });
+    }
+
+    @Benchmark
+    public Page<MemberTeamDTO> contentAndCount(MemberDataset dataset) {
+        return dataset.readOnly.execute(status -> memberRepository.searchPageSimple(condition, pageRequest));
+    }
+
+    @Benchmark
+    public Page<MemberTeamDTO> contentAndCachedCount(MemberDataset dataset) {
+        return dataset.readOnly.execute(status -> new PageImpl<>(
+                searchEngine.search(condition, pageRequest.getOffset(), pageRequest.getPageSize()),
+                pageRequest,
+                countCache.get(condition, () -> searchEngine.countJoined(condition))));
+    }
+}
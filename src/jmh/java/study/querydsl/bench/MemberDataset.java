@@ -0,0 +1,48 @@
+package study.querydsl.bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+
+// 쿼리 벤치마크들이 공유하는 데이터셋 (members 건수별로 한 번씩 띄움)
+// count 캐시(ttl 0) / 검색 결과 캐시는 끄고 매번 실제 쿼리가 나가도록 함
+@State(Scope.Benchmark)
+public class MemberDataset {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int members;
+
+    @Param({"10"})
+    public int teams;
+
+    public BenchmarkDatabase database;
+    public TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("member.count-cache.ttl=0s", "member.search-cache.enabled=false");
+        database.seedMembers(members, teams);
+        readOnly = new TransactionTemplate(database.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    // 팀 하나 + 나이 범위 (결과는 전체의 약 2%)
+    public MemberSearchCondition teamAndAgeRange() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(39);
+        return condition;
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.repository.MemberPagingStrategy;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+// OFFSET vs DEFERRED_JOIN 페이징 비교 (offset 이 커질수록 차이 확인)
+// count 는 캐시에 올라간 뒤에는 두 방식 모두 재실행하지 않으므로 사실상 content 조회 비용만 비교됨
+// 검색 결과 캐시는 끔 (켜 두면 같은 페이지를 캐시에서 돌려줌)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MemberPagingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"200000"})
+    int members;
+
+    @Param({"0", "10000", "190000"})
+    long offset;
+
+    @Param({"OFFSET", "DEFERRED_JOIN"})
+    MemberPagingStrategy strategy;
+
+    BenchmarkDatabase database;
+    MemberRepository memberRepository;
+    TransactionTemplate readOnly;
+    MemberSearchCondition condition;
+    PageRequest pageRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("member.count-cache.ttl=1h", "member.search-cache.enabled=false");
+        database.seedMembers(members, 10);
+        memberRepository = database.getBean(MemberRepository.class);
+        readOnly = new TransactionTemplate(database.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        pageRequest = PageRequest.of((int) (offset / PAGE_SIZE), PAGE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Page<MemberTeamDTO> searchPage() {
+        return readOnly.execute(status -> memberRepository.searchPage(condition, pageRequest, strategy));
+    }
+}
@@ -0,0 +1,56 @@
+package study.querydsl.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 같은 조건으로 BooleanBuilder / where 다중 파라미터 / 사용자 정의 리포지토리 검색 비교
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MemberSearchBenchmark {
+
+    MemberJpaRepository memberJpaRepository;
+    MemberRepository memberRepository;
+    MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp(MemberDataset dataset) {
+        memberJpaRepository = dataset.database.getBean(MemberJpaRepository.class);
+        memberRepository = dataset.database.getBean(MemberRepository.class);
+        condition = dataset.teamAndAgeRange();
+    }
+
+    @Benchmark
+    public List<MemberTeamDTO> searchByBuilder(MemberDataset dataset) {
+        return dataset.readOnly.execute(status -> memberJpaRepository.searchByBuilder(condition));
+    }
+
+    @Benchmark
+    public List<MemberTeamDTO> searchByDinamicQuery(MemberDataset dataset) {
+        return dataset.readOnly.execute(status -> memberJpaRepository.searchByDinamicQuery(condition));
+    }
+
+    @Benchmark
+    public List<MemberTeamDTO> search(MemberDataset dataset) {
+        return dataset.readOnly.execute(status -> memberRepository.search(condition));
+    }
+}
@@ -0,0 +1,62 @@
+package study.querydsl.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.repository.MemberSearchEngine;
+import study.querydsl.repository.MemberSearchQueryRegistry;
+import study.querydsl.repository.SqlMemberSearchEngine;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// MemberTeamDTO 검색 : JPQL(MemberSearchQueryRegistry) vs QueryDSL SQL(SqlMemberSearchEngine)
+// 목록 전체 / 한 페이지(20건) / count
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MemberSearchEngineBenchmark {
+
+    @Param({"jpa", "sql"})
+    public String engine;
+
+    MemberSearchEngine searchEngine;
+    MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp(MemberDataset dataset) {
+        searchEngine = "sql".equals(engine)
+                ? dataset.database.getBean(SqlMemberSearchEngine.class)
+                : dataset.database.getBean(MemberSearchQueryRegistry.class);
+        condition = dataset.teamAndAgeRange();
+    }
+
+    @Benchmark
+    public List<MemberTeamDTO> search(MemberDataset dataset) {
+        return dataset.readOnly.execute(status -> searchEngine.search(condition, 0, -1));
+    }
+
+    @Benchmark
+    public List<MemberTeamDTO> page(MemberDataset dataset) {
+        return dataset.readOnly.execute(status -> searchEngine.search(condition, 0, 20));
+    }
+
+    @Benchmark
+    public Long count(MemberDataset dataset) {
+        return dataset.readOnly.execute(status -> searchEngine.count(condition));
+    }
+}
@@ -0,0 +1,81 @@
+package study.querydsl.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.UserSearchDTO;
+import study.querydsl.entity.UsersEntity;
+import study.querydsl.repository.UserRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// UserRepository.findSearch 이름 부분 검색 지연시간 : trigram 색인(index) vs LIKE 전체 검색(scan)
+// queryLength 3 -> 후보 수백 건, 5 -> 후보 몇 건 (무작위 소문자 이름 기준)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UserNameSearchBenchmark {
+
+    private static final int QUERIES = 64;
+
+    @Param({"1000000"})
+    public int users;
+
+    @Param({"index", "scan"})
+    public String mode;
+
+    @Param({"3", "5"})
+    public int queryLength;
+
+    BenchmarkDatabase database;
+    TransactionTemplate readOnly;
+    UserRepository userRepository;
+    UserSearchDTO[] searches;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BenchmarkDatabase.start("users.name-index.enabled=" + "index".equals(mode));
+        database.seedUsers(users, 42L);
+        readOnly = new TransactionTemplate(database.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        userRepository = database.getBean(UserRepository.class);
+
+        // 실제 이름의 일부분을 검색어로 사용
+        List<String> names = database.getBean(JdbcTemplate.class).queryForList(
+                "select user_name from users_entity order by user_id limit ?", String.class, QUERIES);
+        searches = new UserSearchDTO[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            searches[i] = new UserSearchDTO();
+            searches[i].setUserName(names.get(i).substring(2, 2 + queryLength));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<UsersEntity> findSearch() {
+        UserSearchDTO search = searches[next++ % QUERIES];
+        return readOnly.execute(status -> userRepository.findSearch(search));
+    }
+}
@@ -0,0 +1,70 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManagerFactory;
+
+// app.datasource.replica.url 이 있을 때만 읽기 / 쓰기 DataSource 를 나눔
+// 빈으로 등록되는 DataSource 는 RoutingDataSource 하나 (JPA, JdbcTemplate, p6spy 모두 이걸 사용)
+// primary / replica 커넥션 풀은 빈이 아니므로 메트릭(hikaricp.*, pool=primary|replica)과 종료를 여기서 직접 처리
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "url")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    public RoutingDataSource dataSource(DataSourceProperties primaryProperties,
+                                        ReplicaDataSourceProperties replicaProperties,
+                                        ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replicaProperties.getUrl())
+                .username(replicaProperties.getUsername())
+                .password(replicaProperties.getPassword())
+                .driverClassName(replicaProperties.getDriverClassName())
+                .build();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        replica.setMaximumPoolSize(replicaProperties.getMaximumPoolSize());
+        replica.setConnectionTimeout(replicaProperties.getConnectionTimeout().toMillis());
+        // 복제 DB 가 내려가 있어도 애플리케이션은 떠야 함
+        replica.setInitializationFailTimeout(-1);
+
+        ReplicaHealthCheck healthCheck = new ReplicaHealthCheck(replica,
+                replicaProperties.getLagQuery(), replicaProperties.getMaxLag(), replicaProperties.getCheckInterval());
+        RoutingDataSource routing = new RoutingDataSource(primary, replica, healthCheck);
+        routing.afterPropertiesSet();
+
+        meterRegistry.ifAvailable(registry -> {
+            primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            Gauge.builder("datasource.replica.available", routing, r -> r.isReplicaAvailable() ? 1 : 0)
+                    .register(registry);
+        });
+        return routing;
+    }
+
+    // 스프링 부트 기본 JpaTransactionManager 대신 사용 (spring.transaction.* 설정은 customizer 로 그대로 적용)
+    @Bean
+    public PlatformTransactionManager transactionManager(EntityManagerFactory emf,
+                                                         ObjectProvider<TransactionManagerCustomizers> customizers) {
+        RoutingJpaTransactionManager transactionManager = new RoutingJpaTransactionManager(emf);
+        customizers.ifAvailable(c -> c.customize(transactionManager));
+        return transactionManager;
+    }
+}
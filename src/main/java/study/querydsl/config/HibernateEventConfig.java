@@ -0,0 +1,57 @@
+package study.querydsl.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.event.BulkDmlStatementInspector;
+import study.querydsl.event.EntityChangeEventListener;
+
+import javax.persistence.EntityManagerFactory;
+
+// 하이버네이트 엔티티 변경 / 벌크 DML 을 스프링 이벤트로 발행하도록 연결
+@Configuration
+public class HibernateEventConfig {
+
+    @Bean
+    public BulkDmlStatementInspector bulkDmlStatementInspector(ApplicationEventPublisher publisher) {
+        return new BulkDmlStatementInspector(publisher);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(BulkDmlStatementInspector inspector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+
+    @Bean
+    public EntityChangeEventListener entityChangeEventListener(EntityManagerFactory emf, ApplicationEventPublisher publisher,
+                                                               BulkDmlStatementInspector inspector) {
+        SessionFactoryImpl sessionFactory = emf.unwrap(SessionFactoryImpl.class);
+        // 엔티티 DML 인지 pk / version 컬럼으로 판단하도록 매핑된 테이블을 알려줌
+        for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            if (!(persister instanceof AbstractEntityPersister)) {
+                continue;
+            }
+            AbstractEntityPersister entity = (AbstractEntityPersister) persister;
+            if (entity.getIdentifierColumnNames().length == 1) {
+                inspector.register(entity.getTableName(), entity.getIdentifierColumnNames()[0],
+                        entity.isVersioned() ? entity.getVersionColumnName() : null);
+            }
+        }
+
+        EntityChangeEventListener listener = new EntityChangeEventListener(publisher);
+        EventListenerRegistry registry = sessionFactory
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        return listener;
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.metrics.QueryContextInterceptor;
+import study.querydsl.metrics.RepositoryQueryContextPostProcessor;
+import study.querydsl.metrics.StatementBudget;
+
+// SQL 메트릭(QueryMetricsListener)을 endpoint / 리포지토리 메서드별로 나누고, 요청별 statement 예산을 세기 위한 연결
+@Configuration
+@RequiredArgsConstructor
+public class QueryMetricsConfig implements WebMvcConfigurer {
+
+    private final StatementBudget statementBudget;
+
+    // BeanPostProcessor 는 다른 빈보다 먼저 만들어져야 하므로 static
+    @Bean
+    public static RepositoryQueryContextPostProcessor repositoryQueryContextPostProcessor() {
+        return new RepositoryQueryContextPostProcessor();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new QueryContextInterceptor(statementBudget));
+    }
+}
@@ -0,0 +1,59 @@
+package study.querydsl.config;
+
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.spring.SpringConnectionProvider;
+import com.querydsl.sql.spring.SpringExceptionTranslator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import study.querydsl.repository.MemberSearchEngine;
+import study.querydsl.repository.MemberSearchQueryRegistry;
+import study.querydsl.repository.MemberSnapshot;
+import study.querydsl.repository.SnapshotMemberSearchEngine;
+import study.querydsl.repository.SqlMemberSearchEngine;
+
+import javax.sql.DataSource;
+
+// QueryDSL SQL 설정 + MemberTeamDTO 검색 실행기 선택
+@Configuration
+public class QuerydslSqlConfig {
+
+    @Bean
+    public com.querydsl.sql.Configuration querydslSqlConfiguration() {
+        com.querydsl.sql.Configuration configuration = new com.querydsl.sql.Configuration(H2Templates.builder().build());
+        // SQLException -> 스프링 DataAccessException (JPA 경로와 같은 예외 계층)
+        configuration.setExceptionTranslator(new SpringExceptionTranslator());
+        return configuration;
+    }
+
+    // JPA 와 같은 DataSource, 같은 트랜잭션(JpaTransactionManager 가 묶어둔 커넥션)을 사용
+    @Bean
+    public SQLQueryFactory sqlQueryFactory(com.querydsl.sql.Configuration querydslSqlConfiguration, DataSource dataSource) {
+        return new SQLQueryFactory(querydslSqlConfiguration, new SpringConnectionProvider(dataSource));
+    }
+
+    // member.search.engine : jpa(기본) | sql | snapshot
+    @Bean
+    @Primary
+    public MemberSearchEngine memberSearchEngine(@Value("${member.search.engine:jpa}") String engine,
+                                                 MemberSearchQueryRegistry queryRegistry,
+                                                 SqlMemberSearchEngine sqlEngine,
+                                                 SnapshotMemberSearchEngine snapshotEngine,
+                                                 MemberSnapshot snapshot) {
+        switch (engine) {
+            case "jpa":
+                return queryRegistry;
+            case "sql":
+                return sqlEngine;
+            case "snapshot":
+                if (!snapshot.isEnabled()) {
+                    throw new IllegalStateException("member.search.engine=snapshot 은 member.snapshot.enabled=true 가 필요합니다.");
+                }
+                return snapshotEngine;
+            default:
+                throw new IllegalArgumentException("unknown member.search.engine: " + engine);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// 읽기 전용 복제 DB 설정 (application.yml 의 app.datasource.replica.*)
+// url 이 없으면 라우팅 없이 spring.datasource 하나만 사용 (DataSourceRoutingConfig)
+@Component
+@ConfigurationProperties(prefix = "app.datasource.replica")
+@Getter @Setter
+@ToString(exclude = "password")
+public class ReplicaDataSourceProperties {
+
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    private String driverClassName;
+
+    private int maximumPoolSize = 10;
+
+    // 복제 DB 가 죽었을 때 커넥션을 기다리는 시간, 길면 그만큼 읽기 요청이 늦게 primary 로 넘어감
+    private Duration connectionTimeout = Duration.ofSeconds(1);
+
+    // 복제 지연을 초 단위 숫자 하나로 돌려주는 쿼리 (ex. MySQL : select timestampdiff(second, max(ts), now()) from heartbeat)
+    // 없으면 커넥션 유효성만 확인
+    private String lagQuery;
+
+    // 이 이상 지연되면 primary 로 읽음
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    // 상태 확인 주기 (장애로 빠진 복제 DB 도 이 주기로 다시 확인)
+    private Duration checkInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,87 @@
+package study.querydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 복제 DB 를 읽기에 써도 되는지 판단 (커넥션 가능 + 지연이 maxLag 이하)
+// 별도 스레드 없이 라우팅 시점에 checkInterval 마다 한 스레드만 확인하고 나머지는 마지막 결과를 사용
+@Slf4j
+class ReplicaHealthCheck {
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final long checkIntervalNanos;
+
+    private volatile boolean available = true;
+    private final AtomicLong nextCheckAt;
+
+    ReplicaHealthCheck(DataSource replica, String lagQuery, Duration maxLag, Duration checkInterval) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.getSeconds();
+        this.checkIntervalNanos = checkInterval.toNanos();
+        this.nextCheckAt = new AtomicLong(System.nanoTime());
+    }
+
+    boolean isAvailable() {
+        long now = System.nanoTime();
+        long next = nextCheckAt.get();
+        if (now - next >= 0 && nextCheckAt.compareAndSet(next, now + checkIntervalNanos)) {
+            update(check());
+        }
+        return available;
+    }
+
+    // 확인 없이 마지막 결과만 (메트릭용)
+    boolean isLastKnownAvailable() {
+        return available;
+    }
+
+    // 커넥션을 못 얻었을 때 (다음 확인 때까지 primary 사용)
+    void markDown(SQLException e) {
+        nextCheckAt.set(System.nanoTime() + checkIntervalNanos);
+        if (available) {
+            log.warn("replica unavailable, reading from primary: {}", e.getMessage());
+        }
+        available = false;
+    }
+
+    private boolean check() {
+        try (Connection connection = replica.getConnection()) {
+            if (lagQuery == null) {
+                return connection.isValid(1);
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                long lag = rs.next() ? rs.getLong(1) : Long.MAX_VALUE;
+                if (lag > maxLagSeconds) {
+                    log.debug("replica lag {}s > {}s", lag, maxLagSeconds);
+                    return false;
+                }
+                return true;
+            }
+        } catch (SQLException e) {
+            log.debug("replica check failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void update(boolean healthy) {
+        if (healthy != available) {
+            if (healthy) {
+                log.info("replica available again");
+            } else {
+                log.warn("replica unavailable or lagging, reading from primary");
+            }
+        }
+        available = healthy;
+    }
+}
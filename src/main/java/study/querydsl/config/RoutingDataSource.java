@@ -0,0 +1,89 @@
+package study.querydsl.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+// @Transactional(readOnly = true) 는 복제 DB, 나머지(트랜잭션 밖 포함)는 primary
+// JPA 트랜잭션은 doBegin 에서 커넥션을 가져오는데 그 시점엔 TransactionSynchronizationManager 에 readOnly 가 아직 없음
+// -> RoutingJpaTransactionManager 가 doBegin 동안만 readOnly 여부를 넘겨줌
+// (LazyConnectionDataSourceProxy 는 p6spy 가 getConnection 에서 getMetaData 를 호출해서 바로 커넥션을 가져오므로 사용 불가)
+public class RoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+    enum Route {PRIMARY, REPLICA}
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaHealthCheck healthCheck;
+
+    RoutingDataSource(DataSource primary, DataSource replica, ReplicaHealthCheck healthCheck) {
+        this.primary = primary;
+        this.replica = replica;
+        this.healthCheck = healthCheck;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (Boolean.TRUE.equals(READ_ONLY.get()) && healthCheck.isAvailable()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+
+    // 복제 DB 커넥션을 못 얻으면 에러 대신 primary 로 읽음
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target != replica) {
+            return target.getConnection();
+        }
+        try {
+            return replica.getConnection();
+        } catch (SQLException e) {
+            healthCheck.markDown(e);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return determineTargetDataSource().getConnection(username, password);
+    }
+
+    static void beginRoute(boolean readOnly) {
+        READ_ONLY.set(readOnly);
+    }
+
+    static void endRoute() {
+        READ_ONLY.remove();
+    }
+
+    // 컨텍스트 종료 시 두 커넥션 풀을 닫음
+    @Override
+    public void close() throws IOException {
+        if (replica instanceof Closeable) {
+            ((Closeable) replica).close();
+        }
+        if (primary instanceof Closeable) {
+            ((Closeable) primary).close();
+        }
+    }
+
+    boolean isReplicaAvailable() {
+        return healthCheck.isLastKnownAvailable();
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.config;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import javax.persistence.EntityManagerFactory;
+
+// 트랜잭션을 시작하면서 커넥션을 가져오는 동안 readOnly 여부를 RoutingDataSource 에 알려줌
+// 이미 진행 중인 트랜잭션에 참여하는 경우는 doBegin 이 호출되지 않으므로 바깥 트랜잭션의 커넥션을 그대로 사용
+public class RoutingJpaTransactionManager extends JpaTransactionManager {
+
+    public RoutingJpaTransactionManager(EntityManagerFactory emf) {
+        super(emf);
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        RoutingDataSource.beginRoute(definition.isReadOnly());
+        try {
+            super.doBegin(transaction, definition);
+        } finally {
+            RoutingDataSource.endRoute();
+        }
+    }
+}
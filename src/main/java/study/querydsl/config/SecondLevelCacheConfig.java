@@ -0,0 +1,52 @@
+package study.querydsl.config;
+
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+
+// 하이버네이트 2차 캐시 (Team, Team.members, 팀 이름 조회 쿼리)
+// - JCache(Ehcache 3) 힙 캐시, region 마다 최대 엔트리 수로 크기 제한 (SecondLevelCacheProperties)
+// - JDBC 로 직접 바꾼 데이터는 SecondLevelCacheEvictor 가 비움
+// - region 별 통계는 generate_statistics -> actuator 의 hibernate.second.level.cache.* (tag region) 로 확인
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(SecondLevelCacheProperties properties) {
+        ConfigurationBuilder configuration = ConfigurationBuilder.newConfigurationBuilder();
+        for (Map.Entry<String, SecondLevelCacheProperties.Region> region : properties.getRegions().entrySet()) {
+            configuration = configuration.withCache(region.getKey(), toEhcache(region.getValue()));
+        }
+        // 컨텍스트마다 별도의 CacheManager (테스트에서 컨텍스트가 여러 개 떠도 캐시를 공유하지 않도록)
+        URI uri = URI.create("urn:querydsl:second-level-cache:" + UUID.randomUUID());
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        return provider.getCacheManager(uri, configuration.build());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    private CacheConfiguration<Object, Object> toEhcache(SecondLevelCacheProperties.Region region) {
+        CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder.newCacheConfigurationBuilder(
+                Object.class, Object.class, ResourcePoolsBuilder.heap(region.getMaxEntries()));
+        if (region.getTtl() != null) {
+            builder = builder.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(region.getTtl()));
+        }
+        return builder.build();
+    }
+}
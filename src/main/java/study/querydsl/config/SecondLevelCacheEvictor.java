@@ -0,0 +1,36 @@
+package study.querydsl.config;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Team;
+import study.querydsl.event.BulkChangedEvent;
+
+import javax.persistence.EntityManagerFactory;
+
+// MemberSeeder 처럼 JDBC 로 직접 넣은 변경은 하이버네이트가 모르므로 관련 2차 캐시 region 을 비움
+// (JPQL / 네이티브 벌크 연산은 하이버네이트가 알아서 비우지만 같이 비워도 문제 없음)
+@Component
+public class SecondLevelCacheEvictor {
+
+    private static final String TEAM_MEMBERS = Team.class.getName() + ".members";
+
+    private final Cache cache;
+
+    public SecondLevelCacheEvictor(EntityManagerFactory emf) {
+        this.cache = emf.unwrap(SessionFactory.class).getCache();
+    }
+
+    @EventListener
+    public void onBulkChanged(BulkChangedEvent event) {
+        if ("team".equals(event.getTable())) {
+            cache.evictEntityData(Team.class);
+            cache.evictQueryRegions();
+        }
+        // member.team_id 가 바뀌면 Team.members 컬렉션이 달라짐
+        if ("team".equals(event.getTable()) || "member".equals(event.getTable())) {
+            cache.evictCollectionData(TEAM_MEMBERS);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 하이버네이트 2차 캐시 region 별 크기 / 만료 (application.yml 의 app.second-level-cache.*)
+// 여기에 없는 region 은 만들지 않음 (missing_cache_strategy: fail -> 오타나 누락이 있으면 기동 실패)
+@Component
+@ConfigurationProperties(prefix = "app.second-level-cache")
+@Getter @Setter
+@ToString
+public class SecondLevelCacheProperties {
+
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Getter @Setter
+    @ToString
+    public static class Region {
+
+        // 힙에 올리는 최대 엔트리 수, 넘으면 오래 안 쓴 것부터 제거
+        private long maxEntries = 1000;
+
+        // 없으면 만료 없음 (update-timestamps region 은 만료되면 안 됨)
+        private Duration ttl;
+    }
+}
@@ -4,14 +4,32 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.CursorSlice;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDTO;
 import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberPagingStrategy;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.service.ExportFormat;
+import study.querydsl.service.MemberExportService;
+import study.querydsl.service.MemberImportReport;
+import study.querydsl.service.MemberImportService;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -21,6 +39,8 @@ public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberExportService memberExportService;
+    private final MemberImportService memberImportService;
 
 
     @GetMapping("/v1/members")
@@ -32,9 +52,49 @@ public class MemberController {
     public Page<MemberTeamDTO> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
         return memberRepository.searchPageSimple(condition, pageable);
     }
+    // estimateTotal=true 면 전체 건수를 count(*) 대신 추정 (응답의 estimated / totalErrorBound 참고, OFFSET 만)
     @GetMapping("/v3/members")
-    public Page<MemberTeamDTO> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public Page<MemberTeamDTO> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(defaultValue = "OFFSET") MemberPagingStrategy strategy,
+                                              @RequestParam(defaultValue = "false") boolean estimateTotal) {
+        if (estimateTotal && strategy == MemberPagingStrategy.OFFSET) {
+            return memberRepository.searchPageEstimated(condition, pageable);
+        }
+        return memberRepository.searchPage(condition, pageable, strategy);
+    }
+
+    // 커서 기반 페이징 - 응답의 nextCursor 를 다음 요청의 cursor 로 넘기면 됨
+    @GetMapping("/v4/members")
+    public CursorSlice<MemberTeamDTO> searchMemberV4(MemberSearchCondition condition,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "20") int size) {
+        return memberRepository.searchSlice(condition, cursor, size);
+    }
+
+    // 검색 결과 전체를 NDJSON(기본) / CSV 로 응답에 바로 씀 (메모리에 모으지 않음)
+    @GetMapping("/v1/members/export")
+    public void exportMembers(MemberSearchCondition condition,
+                              @RequestParam(defaultValue = "ndjson") String format,
+                              HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        memberExportService.export(condition, exportFormat, writer);
+    }
+
+    // NDJSON 본문(팀 / 회원 한 줄씩)을 청크 단위로 저장, 잘못된 줄 / 실패한 청크는 리포트로 응답
+    @PostMapping("/v1/members/import")
+    public MemberImportReport importMembers(HttpServletRequest request) throws IOException {
+        return memberImportService.importNdjson(request.getInputStream());
+    }
+
+    // 잘못된 커서 / size / export 형식은 400 으로 응답
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String badRequest(IllegalArgumentException e) {
+        return e.getMessage();
     }
 
 
@@ -0,0 +1,33 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamMembersDTO;
+import study.querydsl.dto.TeamStatsDTO;
+import study.querydsl.repository.TeamRepository;
+import study.querydsl.repository.TeamStatsReadModel;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStatsReadModel teamStatsReadModel;
+    private final TeamRepository teamRepository;
+
+    // 팀 페이지 + 소속 회원 (팀 / count / 회원 쿼리 최대 3 번)
+    @GetMapping("/v1/teams")
+    public Page<TeamMembersDTO> searchTeams(Pageable pageable) {
+        return teamRepository.searchTeamsWithMembers(pageable);
+    }
+
+    // 팀별 회원 수 / 나이 통계 - 요청마다 groupBy 집계하지 않고 TeamStatsReadModel 에서 팀 수만큼만 읽음
+    @GetMapping("/teams/stats")
+    public List<TeamStatsDTO> teamStats() {
+        return teamStatsReadModel.stats();
+    }
+}
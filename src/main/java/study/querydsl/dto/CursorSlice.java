@@ -0,0 +1,23 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+// 커서(keyset) 기반 페이징 결과
+// nextCursor 는 다음 요청에 그대로 넘겨주면 되는 불투명한 토큰 (마지막 페이지면 null)
+@Getter
+public class CursorSlice<T> {
+
+    private final List<T> content;
+    private final int size;
+    private final boolean hasNext;
+    private final String nextCursor;
+
+    public CursorSlice(List<T> content, int size, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+// 전체 건수를 count(*) 대신 추정치로 채운 페이지
+// estimated 가 true 면 totalElements 는 추정치이고, 실제 값은 totalElements ± totalErrorBound 안에 있음
+// (마지막 페이지라서 content 로 전체 건수를 알 수 있거나, 추정할 수 없는 조건이면 정확한 값 + estimated=false)
+public class EstimatedPage<T> extends PageImpl<T> {
+
+    private final boolean estimated;
+    private final long totalErrorBound;
+
+    public EstimatedPage(List<T> content, Pageable pageable, long total, boolean estimated, long totalErrorBound) {
+        super(content, pageable, total);
+        this.estimated = estimated;
+        this.totalErrorBound = estimated ? totalErrorBound : 0;
+    }
+
+    public static <T> EstimatedPage<T> exact(List<T> content, Pageable pageable, long total) {
+        return new EstimatedPage<>(content, pageable, total, false, 0);
+    }
+
+    public boolean isEstimated() {
+        return estimated;
+    }
+
+    public long getTotalErrorBound() {
+        return totalErrorBound;
+    }
+}
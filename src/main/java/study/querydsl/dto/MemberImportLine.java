@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+// /v1/members/import NDJSON 한 줄
+// {"type":"team","name":"teamA"}
+// {"type":"member","username":"member1","age":10,"teamName":"teamA"} (teamName 이 없으면 팀 없는 회원)
+@Data
+public class MemberImportLine {
+
+    private String type;
+
+    // team
+    private String name;
+
+    // member
+    private String username;
+    private Integer age;
+    private String teamName;
+}
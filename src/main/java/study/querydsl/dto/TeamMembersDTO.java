@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// 팀 한 건 + 소속 회원 (/v1/teams)
+@Data
+public class TeamMembersDTO {
+
+    private Long teamId;
+    private String teamName;
+    private List<MemberDTO> members;
+
+    public TeamMembersDTO(Long teamId, String teamName, List<MemberDTO> members) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.members = members;
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+// 팀별 회원 수 / 나이 합계 / 평균 / 최소 / 최대 (/teams/stats)
+@Data
+public class TeamStatsDTO {
+
+    private Long teamId;
+    private String teamName;
+    private long count;
+    private long ageSum;
+    private double ageAvg;
+    private int ageMin;
+    private int ageMax;
+
+    public TeamStatsDTO(Long teamId, String teamName, long count, long ageSum, int ageMin, int ageMax) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.count = count;
+        this.ageSum = ageSum;
+        this.ageAvg = count == 0 ? 0 : (double) ageSum / count;
+        this.ageMin = ageMin;
+        this.ageMax = ageMax;
+    }
+}
@@ -10,7 +10,9 @@ import javax.persistence.*;
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = SequenceIds.MEMBER_SEQ, allocationSize = SequenceIds.ALLOCATION_SIZE)
     @Column(name = "member_id")
     private Long id;
 
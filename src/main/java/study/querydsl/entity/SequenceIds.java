@@ -0,0 +1,17 @@
+package study.querydsl.entity;
+
+// 엔티티 id 시퀀스 공통 설정
+// 시퀀스를 allocationSize 씩 증가시키고, 한 번 받아온 값 v 부터 v + allocationSize - 1 까지를 메모리에서 나눠줌 (pooled-lo)
+// -> insert 마다 시퀀스를 조회하지 않고, 여러 스레드 / 여러 서버가 같은 시퀀스를 써도 블록이 겹치지 않음
+public final class SequenceIds {
+
+    public static final int ALLOCATION_SIZE = 50;
+
+    public static final String MEMBER_SEQ = "member_seq";
+    public static final String TEAM_SEQ = "team_seq";
+    public static final String USERS_SEQ = "users_seq";
+    public static final String TEST_SEQ = "test_seq";
+
+    private SequenceIds() {
+    }
+}
@@ -1,23 +1,31 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
+// 2차 캐시 (region 크기는 application.yml 의 app.second-level-cache.regions)
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 public class Team {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = SequenceIds.TEAM_SEQ, allocationSize = SequenceIds.ALLOCATION_SIZE)
     @Column(name = "team_id")
     private Long id;
 
     private String name;
 
+    // 회원 id 목록만 캐시됨, 회원 엔티티는 batch fetch 로 조회
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team.members")
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
@@ -5,12 +5,16 @@ import lombok.Setter;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 
 @Entity
 @Getter @Setter
 public class Test {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "test_seq_generator")
+    @SequenceGenerator(name = "test_seq_generator", sequenceName = SequenceIds.TEST_SEQ, allocationSize = SequenceIds.ALLOCATION_SIZE)
     private Long id;
 }
@@ -0,0 +1,17 @@
+package study.querydsl.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// execute() 같은 벌크 연산처럼 어떤 row 가 바뀌었는지 알 수 없는 변경
+// table 은 소문자 테이블명 (member, team ...)
+@Getter
+@ToString
+public class BulkChangedEvent {
+
+    private final String table;
+
+    public BulkChangedEvent(String table) {
+        this.table = table;
+    }
+}
@@ -0,0 +1,70 @@
+package study.querydsl.event;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// queryFactory.update(..).execute() 같은 벌크 연산은 엔티티 이벤트를 타지 않으므로 SQL 을 보고 감지
+// 하이버네이트가 엔티티 단위로 만드는 DML 은 "where <pk>=? [and <version>=?]" 로 끝나거나 (update/delete) "values (" 를 포함 (insert)
+// 그 외의 insert/update/delete 는 어떤 row 가 바뀌었는지 모르는 벌크 연산으로 보고 BulkChangedEvent 발행
+// (where username=? 처럼 조건이 하나라도 pk 가 아니면 벌크)
+// 테이블별 pk / version 컬럼은 세션 팩토리가 만들어진 뒤 register 로 받고, 그 전에는 id / <table>_id, version 으로 판단
+public class BulkDmlStatementInspector implements StatementInspector {
+
+    private static final Pattern COMMENT = Pattern.compile("^\\s*/\\*.*?\\*/\\s*", Pattern.DOTALL);
+    private static final Pattern DML = Pattern.compile("^(?:update|delete\\s+from|delete|insert\\s+into)\\s+([\\w.]+)");
+    // where <pk>=? 또는 where <pk>=? and <version>=? (컬럼 앞 별칭은 무시)
+    private static final Pattern ENTITY_WHERE = Pattern.compile(
+            "where\\s+(?:\\w+\\.)?(\\w+)\\s*=\\s*\\?(?:\\s+and\\s+(?:\\w+\\.)?(\\w+)\\s*=\\s*\\?)?\\s*$");
+
+    private final ApplicationEventPublisher publisher;
+    // 테이블 -> { pk 컬럼, version 컬럼(없으면 null) }
+    private final Map<String, String[]> keys = new ConcurrentHashMap<>();
+
+    public BulkDmlStatementInspector(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    public void register(String table, String primaryKey, String version) {
+        keys.put(table.toLowerCase(Locale.ROOT), new String[]{
+                primaryKey.toLowerCase(Locale.ROOT), version != null ? version.toLowerCase(Locale.ROOT) : null});
+    }
+
+    @Override
+    public String inspect(String sql) {
+        String normalized = COMMENT.matcher(sql).replaceFirst("").toLowerCase(Locale.ROOT);
+        if (!normalized.startsWith("update") && !normalized.startsWith("delete") && !normalized.startsWith("insert")) {
+            return sql;
+        }
+        Matcher dml = DML.matcher(normalized);
+        if (dml.find()) {
+            String table = dml.group(1).substring(dml.group(1).lastIndexOf('.') + 1);
+            if (isBulk(table, normalized)) {
+                publisher.publishEvent(new BulkChangedEvent(table));
+            }
+        }
+        return sql;
+    }
+
+    private boolean isBulk(String table, String normalized) {
+        if (normalized.startsWith("insert")) {
+            return !normalized.contains(" values ") && !normalized.contains(" values(");
+        }
+        Matcher where = ENTITY_WHERE.matcher(normalized);
+        if (!where.find()) {
+            return true;
+        }
+        String[] key = keys.get(table);
+        boolean primaryKey = key != null
+                ? key[0].equals(where.group(1))
+                : "id".equals(where.group(1)) || (table + "_id").equals(where.group(1));
+        boolean version = where.group(2) == null
+                || (key != null ? where.group(2).equals(key[1]) : "version".equals(where.group(2)));
+        return !(primaryKey && version);
+    }
+}
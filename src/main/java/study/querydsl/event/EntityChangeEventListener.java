@@ -0,0 +1,104 @@
+package study.querydsl.event;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.context.ApplicationEventPublisher;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.UsersEntity;
+
+// Hibernate 엔티티 이벤트를 스프링 이벤트(MemberChangedEvent, TeamChangedEvent, UserChangedEvent)로 바꿔서 발행
+// flush 시점에 호출되므로 커밋 전 변경도 포함됨 -> 캐시 무효화처럼 "보수적으로" 처리해도 되는 곳에서 사용
+public class EntityChangeEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public EntityChangeEventListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            publisher.publishEvent(new MemberChangedEvent((Long) event.getId(), null,
+                    memberState(event.getPersister(), event.getState()), false));
+        } else if (event.getEntity() instanceof Team) {
+            publisher.publishEvent(new TeamChangedEvent((Long) event.getId(), null,
+                    teamName(event.getPersister(), event.getState())));
+        } else if (event.getEntity() instanceof UsersEntity) {
+            publisher.publishEvent(new UserChangedEvent((Long) event.getId(), null,
+                    userName(event.getPersister(), event.getState()), false));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object[] oldState = event.getOldState();
+        if (event.getEntity() instanceof Member) {
+            MemberState before = oldState != null ? memberState(event.getPersister(), oldState) : null;
+            publisher.publishEvent(new MemberChangedEvent((Long) event.getId(), before,
+                    memberState(event.getPersister(), event.getState()), oldState == null));
+        } else if (event.getEntity() instanceof Team) {
+            // 이전 이름을 모르면 변경 전/후 구분 없이 새 이름만 전달 -> 구독자는 팀 전체를 무효화해야 함
+            String before = oldState != null ? teamName(event.getPersister(), oldState) : null;
+            publisher.publishEvent(new TeamChangedEvent((Long) event.getId(), before,
+                    teamName(event.getPersister(), event.getState())));
+        } else if (event.getEntity() instanceof UsersEntity) {
+            String before = oldState != null ? userName(event.getPersister(), oldState) : null;
+            publisher.publishEvent(new UserChangedEvent((Long) event.getId(), before,
+                    userName(event.getPersister(), event.getState()), oldState == null));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            publisher.publishEvent(new MemberChangedEvent((Long) event.getId(),
+                    memberState(event.getPersister(), event.getDeletedState()), null, false));
+        } else if (event.getEntity() instanceof Team) {
+            publisher.publishEvent(new TeamChangedEvent((Long) event.getId(),
+                    teamName(event.getPersister(), event.getDeletedState()), null));
+        } else if (event.getEntity() instanceof UsersEntity) {
+            publisher.publishEvent(new UserChangedEvent((Long) event.getId(),
+                    userName(event.getPersister(), event.getDeletedState()), null, false));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private MemberState memberState(EntityPersister persister, Object[] state) {
+        String username = (String) state[persister.getEntityMetamodel().getPropertyIndex("username")];
+        Integer age = (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+        Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+
+        if (team == null) {
+            return new MemberState(username, age, null, null);
+        }
+        // flush 도중에 지연 로딩을 일으키지 않도록, 초기화 안 된 프록시는 id 만 사용
+        if (team instanceof HibernateProxy && ((HibernateProxy) team).getHibernateLazyInitializer().isUninitialized()) {
+            Long teamId = (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+            return new MemberState(username, age, teamId, null);
+        }
+        Team t = (Team) (team instanceof HibernateProxy
+                ? ((HibernateProxy) team).getHibernateLazyInitializer().getImplementation()
+                : team);
+        return new MemberState(username, age, t.getId(), t.getName());
+    }
+
+    private String teamName(EntityPersister persister, Object[] state) {
+        return (String) state[persister.getEntityMetamodel().getPropertyIndex("name")];
+    }
+
+    private String userName(EntityPersister persister, Object[] state) {
+        return (String) state[persister.getEntityMetamodel().getPropertyIndex("userName")];
+    }
+}
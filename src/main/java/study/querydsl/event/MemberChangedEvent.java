@@ -0,0 +1,24 @@
+package study.querydsl.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// Member insert / update / delete 가 flush 될 때 발행
+// insert 면 before 가 null, delete 면 after 가 null
+// update 인데 이전 상태를 알 수 없으면 (detached merge 등) before 가 null 이고 beforeUnknown 이 true
+@Getter
+@ToString
+public class MemberChangedEvent {
+
+    private final Long memberId;
+    private final MemberState before;
+    private final MemberState after;
+    private final boolean beforeUnknown;
+
+    public MemberChangedEvent(Long memberId, MemberState before, MemberState after, boolean beforeUnknown) {
+        this.memberId = memberId;
+        this.before = before;
+        this.after = after;
+        this.beforeUnknown = beforeUnknown;
+    }
+}
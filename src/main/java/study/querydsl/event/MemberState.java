@@ -0,0 +1,27 @@
+package study.querydsl.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// 변경 이벤트에 실리는 Member 한 건의 스냅샷
+// teamId 가 있는데 teamName 이 null 이면 (초기화 안 된 프록시) 팀명을 모르는 상태
+@Getter
+@ToString
+public class MemberState {
+
+    private final String username;
+    private final int age;
+    private final Long teamId;
+    private final String teamName;
+
+    public MemberState(String username, int age, Long teamId, String teamName) {
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.teamName = teamName;
+    }
+
+    public boolean isTeamNameKnown() {
+        return teamId == null || teamName != null;
+    }
+}
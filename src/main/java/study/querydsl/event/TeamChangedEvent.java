@@ -0,0 +1,20 @@
+package study.querydsl.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// Team insert / update / delete 가 flush 될 때 발행 (insert 면 nameBefore, delete 면 nameAfter 가 null)
+@Getter
+@ToString
+public class TeamChangedEvent {
+
+    private final Long teamId;
+    private final String nameBefore;
+    private final String nameAfter;
+
+    public TeamChangedEvent(Long teamId, String nameBefore, String nameAfter) {
+        this.teamId = teamId;
+        this.nameBefore = nameBefore;
+        this.nameAfter = nameAfter;
+    }
+}
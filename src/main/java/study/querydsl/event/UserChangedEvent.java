@@ -0,0 +1,23 @@
+package study.querydsl.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// UsersEntity insert / update / delete 가 flush 될 때 발행 (insert 면 nameBefore, delete 면 nameAfter 가 null)
+// 이전 상태를 모르는 update(merge 등) 면 nameBeforeUnknown = true
+@Getter
+@ToString
+public class UserChangedEvent {
+
+    private final Long userId;
+    private final String nameBefore;
+    private final String nameAfter;
+    private final boolean nameBeforeUnknown;
+
+    public UserChangedEvent(Long userId, String nameBefore, String nameAfter, boolean nameBeforeUnknown) {
+        this.userId = userId;
+        this.nameBefore = nameBefore;
+        this.nameAfter = nameAfter;
+        this.nameBeforeUnknown = nameBeforeUnknown;
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.metrics;
+
+import lombok.Getter;
+
+import java.util.List;
+
+// /actuator/indexes 응답 한 줄 : 전체 스캔하는 select 모양 하나
+@Getter
+public class IndexAdvice {
+
+    private final String shape;
+    private final String sql;
+    private final String plan;
+    // 전체 스캔하는 테이블 (tableScan, 또는 조건 없이 인덱스 전체를 읽음)
+    private final List<String> fullScans;
+    // 조건 컬럼으로 만든 인덱스 DDL, 비어 있으면 조건이 없어서 인덱스로 줄일 수 없는 스캔
+    private final List<String> proposals;
+    // 전에는 인덱스로 실행되던 모양이 다시 전체 스캔
+    private final boolean regression;
+
+    IndexAdvice(SqlShape shape, String plan, List<String> fullScans, List<String> proposals, boolean regression) {
+        this.shape = shape.getId();
+        this.sql = shape.getSql();
+        this.plan = plan;
+        this.fullScans = fullScans;
+        this.proposals = proposals;
+        this.regression = regression;
+    }
+}
@@ -0,0 +1,247 @@
+package study.querydsl.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// 실제로 실행된 select 모양(QueryMetricsListener 샘플)을 H2 EXPLAIN 해서 전체 스캔을 찾고 인덱스를 제안
+// - FROM / JOIN 테이블마다 H2 가 고른 접근 방법 : /* PUBLIC.MEMBER.tableScan */ 또는 조건 없는 /* PUBLIC.PRIMARY_KEY_8 */ 이면 전체 스캔
+// - 제안 컬럼 : = / IN 조건 컬럼 -> 조건이 있는 상대 테이블과의 조인 컬럼 -> 범위 조건 컬럼 하나
+//   LIKE 는 앞에 % 가 올 수 있어서 빼고, 이미 그 컬럼들로 시작하는 인덱스가 있으면 제안하지 않음
+// - mode : report (보고만) | apply (advise 할 때 제안 인덱스를 만듦)
+//          verify (인덱스로 실행되던 모양이 다시 전체 스캔이면 IllegalStateException, 테스트용)
+@Slf4j
+@Component
+public class IndexAdvisor {
+
+    public enum Mode {
+        REPORT, APPLY, VERIFY
+    }
+
+    // FROM "PUBLIC"."MEMBER" "MEMBER0_" /* PUBLIC.IDX: 조건 */ (별칭 / 조건은 없을 수 있음)
+    private static final Pattern TABLE = Pattern.compile(
+            "(?:FROM|JOIN) \"(\\w+)\"\\.\"(\\w+)\"(?: \"(\\w+)\")?\\s*/\\* ([^:*]+?)(:[^*]*)? \\*/");
+    // "MEMBER0_"."AGE" >= 10, "M"."TEAM_ID" = "T"."TEAM_ID", 테이블이 하나면 "USERNAME" = 'a' 처럼 별칭 없이
+    private static final Pattern PREDICATE = Pattern.compile(
+            "(?:\"(\\w+)\"\\.)?\"(\\w+)\" (=|>=|<=|<>|>|<|IN\\(|LIKE)\\s*(?:\"(\\w+)\"\\.\"(\\w+)\")?");
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+
+    private final QueryMetricsListener queryMetrics;
+    private final JdbcTemplate jdbcTemplate;
+    private final Mode mode;
+
+    // 전체 스캔 없이 실행되던 모양 -> 다시 전체 스캔이면 regression
+    private final Set<SqlShape> indexed = ConcurrentHashMap.newKeySet();
+
+    public IndexAdvisor(QueryMetricsListener queryMetrics, JdbcTemplate jdbcTemplate,
+                        @Value("${app.index-advisor.mode:report}") Mode mode) {
+        this.queryMetrics = queryMetrics;
+        this.jdbcTemplate = jdbcTemplate;
+        this.mode = mode;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    // 전체 스캔하는 모양만, regression / 제안이 있는 것부터
+    public List<IndexAdvice> advise() {
+        List<IndexAdvice> advice = explainAll();
+        if (mode == Mode.APPLY) {
+            create(advice);
+        }
+        if (mode == Mode.VERIFY) {
+            List<String> regressions = advice.stream()
+                    .filter(IndexAdvice::isRegression)
+                    .map(a -> a.getShape() + " " + a.getFullScans() + " " + a.getSql())
+                    .collect(Collectors.toList());
+            if (!regressions.isEmpty()) {
+                throw new IllegalStateException("인덱스로 실행되던 SQL 이 전체 스캔으로 바뀜. " + regressions);
+            }
+        }
+        return advice;
+    }
+
+    // 제안 인덱스를 만들고 실행한 DDL 을 돌려줌
+    public List<String> apply() {
+        return create(explainAll());
+    }
+
+    private List<String> create(List<IndexAdvice> advice) {
+        Set<String> ddl = new LinkedHashSet<>();
+        advice.forEach(a -> ddl.addAll(a.getProposals()));
+        for (String statement : ddl) {
+            log.info("index advisor creating index. {}", statement);
+            jdbcTemplate.execute(statement);
+        }
+        return new ArrayList<>(ddl);
+    }
+
+    private List<IndexAdvice> explainAll() {
+        Map<String, List<List<String>>> existing = existingIndexes();
+        List<IndexAdvice> advice = new ArrayList<>();
+        for (Map.Entry<SqlShape, String> sample : queryMetrics.samples().entrySet()) {
+            SqlShape shape = sample.getKey();
+            // 이 클래스가 읽는 메타데이터 등
+            if (shape.getSql().toUpperCase(Locale.ROOT).contains("INFORMATION_SCHEMA")) {
+                continue;
+            }
+            String plan;
+            try {
+                plan = jdbcTemplate.queryForObject("EXPLAIN " + sample.getValue(), String.class);
+            } catch (DataAccessException e) {
+                log.debug("index advisor could not explain shape {}", shape.getId(), e);
+                continue;
+            }
+            IndexAdvice result = analyze(shape, plan, existing);
+            if (result == null) {
+                indexed.add(shape);
+            } else {
+                advice.add(result);
+            }
+        }
+        advice.sort((a, b) -> a.isRegression() != b.isRegression() ? (a.isRegression() ? -1 : 1)
+                : Integer.compare(b.getProposals().size(), a.getProposals().size()));
+        return advice;
+    }
+
+    // 전체 스캔이 없으면 null
+    private IndexAdvice analyze(SqlShape shape, String plan, Map<String, List<List<String>>> existing) {
+        // 별칭 -> 테이블 { schema, table }, 전체 스캔하는 별칭
+        Map<String, String[]> tables = new LinkedHashMap<>();
+        Set<String> scanned = new LinkedHashSet<>();
+        Matcher table = TABLE.matcher(plan);
+        while (table.find()) {
+            String alias = table.group(3) != null ? table.group(3) : table.group(2);
+            tables.put(alias, new String[]{table.group(1), table.group(2)});
+            if (table.group(4).endsWith(".tableScan") || table.group(5) == null) {
+                scanned.add(alias);
+            }
+        }
+        if (scanned.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Columns> columns = new HashMap<>();
+        String single = tables.size() == 1 ? tables.keySet().iterator().next() : null;
+        Matcher predicate = PREDICATE.matcher(COMMENT.matcher(plan).replaceAll(" "));
+        while (predicate.find()) {
+            String alias = predicate.group(1) != null ? predicate.group(1) : single;
+            // LIKE / <> 는 인덱스 범위로 줄일 수 없음
+            if (alias == null || !tables.containsKey(alias)
+                    || "LIKE".equals(predicate.group(3)) || "<>".equals(predicate.group(3))) {
+                continue;
+            }
+            String column = predicate.group(2);
+            String operator = predicate.group(3);
+            String otherAlias = predicate.group(4);
+            Columns own = columns.computeIfAbsent(alias, a -> new Columns());
+            if (otherAlias != null) {
+                if (tables.containsKey(otherAlias) && !otherAlias.equals(alias)) {
+                    own.joins.put(column, otherAlias);
+                    columns.computeIfAbsent(otherAlias, a -> new Columns()).joins.put(predicate.group(5), alias);
+                }
+            } else if ("=".equals(operator) || "IN(".equals(operator)) {
+                own.equal.add(column);
+            } else {
+                own.range.add(column);
+            }
+        }
+
+        List<String> fullScans = new ArrayList<>();
+        List<String> proposals = new ArrayList<>();
+        for (String alias : scanned) {
+            String[] schemaTable = tables.get(alias);
+            fullScans.add(schemaTable[1]);
+            List<String> proposal = proposal(columns.get(alias), columns);
+            if (!proposal.isEmpty() && !covered(existing.get(schemaTable[0] + "." + schemaTable[1]), proposal)) {
+                proposals.add(ddl(schemaTable[1], proposal));
+            }
+        }
+        return new IndexAdvice(shape, plan, fullScans, proposals, indexed.contains(shape));
+    }
+
+    private static List<String> proposal(Columns own, Map<String, Columns> all) {
+        List<String> result = new ArrayList<>();
+        if (own == null) {
+            return result;
+        }
+        result.addAll(own.equal);
+        // 상대 테이블에 조건이 있으면 그 테이블부터 읽고 조인 컬럼으로 이 테이블을 찾을 수 있음
+        for (Map.Entry<String, String> join : own.joins.entrySet()) {
+            Columns other = all.get(join.getValue());
+            if (other != null && other.filtered() && !result.contains(join.getKey())) {
+                result.add(join.getKey());
+            }
+        }
+        for (String column : own.range) {
+            if (!result.contains(column)) {
+                result.add(column);
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static boolean covered(List<List<String>> indexes, List<String> proposal) {
+        if (indexes == null) {
+            return false;
+        }
+        for (List<String> index : indexes) {
+            if (index.size() >= proposal.size() && index.subList(0, proposal.size()).equals(proposal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String ddl(String table, List<String> columns) {
+        String tableName = table.toLowerCase(Locale.ROOT);
+        List<String> names = columns.stream().map(c -> c.toLowerCase(Locale.ROOT)).collect(Collectors.toList());
+        return "create index if not exists idx_" + tableName + "_" + String.join("_", names)
+                + " on " + tableName + " (" + String.join(", ", names) + ")";
+    }
+
+    // "SCHEMA.TABLE" -> 인덱스마다 컬럼 목록 (PK 포함)
+    private Map<String, List<List<String>>> existingIndexes() {
+        Map<String, Map<String, List<String>>> byIndex = new HashMap<>();
+        jdbcTemplate.query("select table_schema, table_name, index_name, column_name from information_schema.indexes"
+                        + " order by table_schema, table_name, index_name, ordinal_position",
+                rs -> {
+                    byIndex.computeIfAbsent(rs.getString(1) + "." + rs.getString(2), t -> new LinkedHashMap<>())
+                            .computeIfAbsent(rs.getString(3), i -> new ArrayList<>())
+                            .add(rs.getString(4));
+                });
+        Map<String, List<List<String>>> result = new HashMap<>();
+        byIndex.forEach((table, indexes) -> result.put(table, new ArrayList<>(indexes.values())));
+        return result;
+    }
+
+    // 별칭 하나의 조건 컬럼
+    private static final class Columns {
+        private final Set<String> equal = new TreeSet<>();
+        private final Set<String> range = new TreeSet<>();
+        // 조인 컬럼 -> 상대 별칭
+        private final Map<String, String> joins = new LinkedHashMap<>();
+
+        private boolean filtered() {
+            return !equal.isEmpty() || !range.isEmpty();
+        }
+    }
+}
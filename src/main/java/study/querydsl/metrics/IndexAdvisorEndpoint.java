@@ -0,0 +1,35 @@
+package study.querydsl.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// GET  /actuator/indexes : 지금까지 실행된 select 모양 중 전체 스캔하는 것과 제안 인덱스
+// POST /actuator/indexes : 제안 인덱스를 만들고 실행한 DDL 을 돌려줌 (app.index-advisor.mode 가 apply 일 때만, 아니면 400)
+// DDL 을 실행하므로 기본 web 노출 목록에는 없음 (management.endpoints.web.exposure.include 에 indexes 를 추가해야 보임)
+@Component
+@Endpoint(id = "indexes")
+@RequiredArgsConstructor
+public class IndexAdvisorEndpoint {
+
+    private final IndexAdvisor indexAdvisor;
+
+    @ReadOperation
+    public List<IndexAdvice> advise() {
+        return indexAdvisor.advise();
+    }
+
+    @WriteOperation
+    public List<String> apply() {
+        if (indexAdvisor.getMode() != IndexAdvisor.Mode.APPLY) {
+            throw new InvalidEndpointRequestException("index advisor mode is " + indexAdvisor.getMode()
+                    + ", set app.index-advisor.mode=apply to create indexes", "mode is not apply");
+        }
+        return indexAdvisor.apply();
+    }
+}
@@ -0,0 +1,89 @@
+package study.querydsl.metrics;
+
+import java.util.concurrent.Callable;
+
+// 지금 실행 중인 SQL 이 어느 요청(endpoint) / 어느 리포지토리 메서드에서 나왔는지
+// - 스레드마다 Frame 하나를 계속 재사용 -> 쿼리 / 리포지토리 호출마다 객체를 만들지 않음
+// - 리포지토리가 다른 리포지토리를 부르면 바깥쪽 메서드로 집계
+public final class QueryContext {
+
+    public static final String NONE = "none";
+
+    private static final ThreadLocal<Frame> CURRENT = ThreadLocal.withInitial(Frame::new);
+
+    private QueryContext() {
+    }
+
+    static Frame current() {
+        return CURRENT.get();
+    }
+
+    public static String endpoint() {
+        return CURRENT.get().endpoint;
+    }
+
+    public static String repositoryMethod() {
+        return CURRENT.get().repositoryMethod;
+    }
+
+    static void enterEndpoint(String endpoint) {
+        CURRENT.get().endpoint = endpoint;
+    }
+
+    static void exitEndpoint() {
+        CURRENT.get().endpoint = NONE;
+    }
+
+    // 바깥쪽 리포지토리 메서드가 이미 있으면 false (그대로 둠)
+    static boolean enterRepository(String repositoryMethod) {
+        Frame frame = CURRENT.get();
+        if (frame.repositoryMethod != NONE) {
+            return false;
+        }
+        frame.repositoryMethod = repositoryMethod;
+        return true;
+    }
+
+    static void exitRepository() {
+        CURRENT.get().repositoryMethod = NONE;
+    }
+
+    // 실행한 statement 를 세는 중인 StatementCounter (없으면 null)
+    static StatementCounter counter() {
+        return CURRENT.get().counter;
+    }
+
+    static void setCounter(StatementCounter counter) {
+        CURRENT.get().counter = counter;
+    }
+
+    // 다른 스레드로 넘기는 작업(예: 병렬 count)도 호출한 쪽 endpoint / 메서드 / StatementCounter 로 집계되도록
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Frame caller = CURRENT.get();
+        String endpoint = caller.endpoint;
+        String repositoryMethod = caller.repositoryMethod;
+        StatementCounter counter = caller.counter;
+        return () -> {
+            Frame frame = CURRENT.get();
+            String previousEndpoint = frame.endpoint;
+            String previousRepositoryMethod = frame.repositoryMethod;
+            StatementCounter previousCounter = frame.counter;
+            frame.endpoint = endpoint;
+            frame.repositoryMethod = repositoryMethod;
+            frame.counter = counter;
+            try {
+                return task.call();
+            } finally {
+                frame.endpoint = previousEndpoint;
+                frame.repositoryMethod = previousRepositoryMethod;
+                frame.counter = previousCounter;
+            }
+        };
+    }
+
+    static final class Frame {
+        String endpoint = NONE;
+        String repositoryMethod = NONE;
+        StatementCounter counter;
+    }
+}
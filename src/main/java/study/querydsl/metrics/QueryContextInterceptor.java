@@ -0,0 +1,42 @@
+package study.querydsl.metrics;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+// 요청을 처리하는 동안 QueryContext 에 매핑 패턴(/v3/members 등)을 걸어 두고, statement 예산(StatementBudget)을 셈
+// 경로 변수가 있어도 패턴 단위로 묶이므로 태그 값이 늘어나지 않음
+public class QueryContextInterceptor implements HandlerInterceptor {
+
+    private static final String COUNTER = QueryContextInterceptor.class.getName() + ".counter";
+
+    private final StatementBudget statementBudget;
+
+    public QueryContextInterceptor(StatementBudget statementBudget) {
+        this.statementBudget = statementBudget;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern instanceof String) {
+            QueryContext.enterEndpoint((String) pattern);
+        }
+        StatementCounter counter = statementBudget.begin();
+        if (counter != null) {
+            request.setAttribute(COUNTER, counter);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        try {
+            statementBudget.end((StatementCounter) request.getAttribute(COUNTER));
+        } finally {
+            QueryContext.exitEndpoint();
+        }
+    }
+}
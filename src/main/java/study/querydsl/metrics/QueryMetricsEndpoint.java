@@ -0,0 +1,32 @@
+package study.querydsl.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// GET /actuator/queries               : DB 시간을 많이 쓴 순서로 endpoint / 리포지토리 메서드 / SQL 모양별 집계
+// GET /actuator/queries?endpoint=/v3/members : 특정 endpoint 만
+// 같은 값은 /actuator/metrics/db.query?tag=endpoint:/v3/members 처럼 미터로도 볼 수 있음
+@Component
+@Endpoint(id = "queries")
+@RequiredArgsConstructor
+public class QueryMetricsEndpoint {
+
+    private final QueryMetricsListener queryMetrics;
+
+    @ReadOperation
+    public List<QueryStats> queries(@Nullable String endpoint) {
+        List<QueryStats> stats = queryMetrics.snapshot();
+        if (endpoint == null) {
+            return stats;
+        }
+        return stats.stream()
+                .filter(s -> s.getEndpoint().equals(endpoint))
+                .collect(Collectors.toList());
+    }
+}
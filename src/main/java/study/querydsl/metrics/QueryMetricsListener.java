@@ -0,0 +1,338 @@
+package study.querydsl.metrics;
+
+import com.p6spy.engine.common.ConnectionInformation;
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+// p6spy 이벤트로 SQL 실행을 endpoint / 리포지토리 메서드 / SQL 모양별로 집계
+// - db.query            : 실행 시간 히스토그램 (count = 실행한 statement 수)
+// - db.query.rows       : select 는 읽은 행 수, insert/update/delete 는 영향 받은 행 수
+// - db.connection.acquire : 커넥션 획득 시간
+// 실행 직전에는 현재 스레드의 StatementCounter(요청 예산 / 테스트)에 모양별로 기록
+// 모든 미터는 처음 한 번만 만들고 이후 실행은 맵 조회 + 기록만 (statement 마다 객체를 만들지 않음)
+// - 원본 SQL 문자열 -> 모양 캐시가 max-statements 를 넘으면 그 뒤로는 매번 정규화
+// - 모양이 max-shapes 를 넘으면 other 로 모음 (태그 수 폭증 방지)
+// select 모양마다 처음 성공한 실행의 SQL(값 포함, 주석 제외)을 하나씩 남김 -> IndexAdvisor 가 EXPLAIN
+@Slf4j
+@Component
+public class QueryMetricsListener extends JdbcEventListener {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int maxShapes;
+    private final int maxStatements;
+    private final boolean histogram;
+
+    private final Map<String, SqlShape> shapesBySql = new ConcurrentHashMap<>();
+    private final Map<String, SqlShape> shapes = new ConcurrentHashMap<>();
+    private final AtomicInteger shapeCount = new AtomicInteger();
+    // select 모양 -> 값이 들어간 SQL 한 건
+    private final Map<SqlShape, String> samples = new ConcurrentHashMap<>();
+
+    // endpoint -> 리포지토리 메서드 -> 미터
+    private final Map<String, Map<String, Origin>> origins = new ConcurrentHashMap<>();
+
+    public QueryMetricsListener(MeterRegistry meterRegistry,
+                                @Value("${app.query-metrics.enabled:true}") boolean enabled,
+                                @Value("${app.query-metrics.max-shapes:500}") int maxShapes,
+                                @Value("${app.query-metrics.max-statements:5000}") int maxStatements,
+                                @Value("${app.query-metrics.histogram:true}") boolean histogram) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxShapes = maxShapes;
+        this.maxStatements = maxStatements;
+        this.histogram = histogram;
+    }
+
+    @Override
+    public void onAfterGetConnection(ConnectionInformation connectionInformation, SQLException e) {
+        if (enabled && e == null) {
+            origin().acquire.record(connectionInformation.getTimeToGetConnectionNs(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // 실행 직전 : 요청 / 테스트의 StatementCounter 에 기록 (예산을 넘으면 여기서 거부)
+    @Override
+    public void onBeforeExecuteQuery(PreparedStatementInformation statementInformation) {
+        counted(statementInformation.getStatementQuery());
+    }
+
+    @Override
+    public void onBeforeExecuteQuery(StatementInformation statementInformation, String sql) {
+        counted(sql);
+    }
+
+    @Override
+    public void onBeforeExecuteUpdate(PreparedStatementInformation statementInformation) {
+        counted(statementInformation.getStatementQuery());
+    }
+
+    @Override
+    public void onBeforeExecuteUpdate(StatementInformation statementInformation, String sql) {
+        counted(sql);
+    }
+
+    @Override
+    public void onBeforeExecute(PreparedStatementInformation statementInformation) {
+        counted(statementInformation.getStatementQuery());
+    }
+
+    @Override
+    public void onBeforeExecute(StatementInformation statementInformation, String sql) {
+        counted(sql);
+    }
+
+    @Override
+    public void onBeforeExecuteBatch(StatementInformation statementInformation) {
+        counted(statementInformation.getStatementQuery());
+    }
+
+    @Override
+    public void onAfterExecuteQuery(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        executed(statementInformation.getStatementQuery(), timeElapsedNanos, -1);
+        if (e == null) {
+            sampled(statementInformation, statementInformation.getStatementQuery());
+        }
+    }
+
+    @Override
+    public void onAfterExecuteQuery(StatementInformation statementInformation, long timeElapsedNanos, String sql, SQLException e) {
+        executed(sql, timeElapsedNanos, -1);
+        if (e == null) {
+            sampled(statementInformation, sql);
+        }
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(PreparedStatementInformation statementInformation, long timeElapsedNanos, int rowCount, SQLException e) {
+        executed(statementInformation.getStatementQuery(), timeElapsedNanos, rowCount);
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(StatementInformation statementInformation, long timeElapsedNanos, String sql, int rowCount, SQLException e) {
+        executed(sql, timeElapsedNanos, rowCount);
+    }
+
+    @Override
+    public void onAfterExecute(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        executed(statementInformation.getStatementQuery(), timeElapsedNanos, -1);
+    }
+
+    @Override
+    public void onAfterExecute(StatementInformation statementInformation, long timeElapsedNanos, String sql, SQLException e) {
+        executed(sql, timeElapsedNanos, -1);
+    }
+
+    @Override
+    public void onAfterExecuteBatch(StatementInformation statementInformation, long timeElapsedNanos, int[] updateCounts, SQLException e) {
+        long rows = 0;
+        if (updateCounts != null) {
+            for (int count : updateCounts) {
+                // SUCCESS_NO_INFO(-2) 등은 건너뜀
+                if (count > 0) {
+                    rows += count;
+                }
+            }
+        }
+        executed(statementInformation.getStatementQuery(), timeElapsedNanos, rows);
+    }
+
+    @Override
+    public void onAfterResultSetClose(ResultSetInformation resultSetInformation, SQLException e) {
+        if (!enabled) {
+            return;
+        }
+        SqlShape shape = shape(resultSetInformation.getSql());
+        if (shape != null) {
+            // p6spy 기본 리스너가 next() 가 true 일 때마다 올리는 행 번호 (-1 부터 시작)
+            int rows = resultSetInformation.getCurrRow() + 1;
+            origin().meters(shape).rows.record(rows);
+        }
+    }
+
+    private void counted(String sql) {
+        StatementCounter counter = QueryContext.counter();
+        if (counter == null) {
+            return;
+        }
+        SqlShape shape = shape(sql);
+        counter.record(shape == null ? SqlShape.OTHER : shape);
+    }
+
+    private void executed(String sql, long timeElapsedNanos, long rows) {
+        if (!enabled) {
+            return;
+        }
+        SqlShape shape = shape(sql);
+        if (shape == null) {
+            return;
+        }
+        ShapeMeters meters = origin().meters(shape);
+        meters.time.record(timeElapsedNanos, TimeUnit.NANOSECONDS);
+        if (rows >= 0) {
+            meters.rows.record(rows);
+        }
+    }
+
+    // 모양마다 한 번만 값이 들어간 SQL 을 만듦 (getSqlWithValues 는 매번 문자열을 만듦)
+    private void sampled(StatementInformation statementInformation, String sql) {
+        if (!enabled) {
+            return;
+        }
+        SqlShape shape = shape(sql);
+        if (shape == null || shape == SqlShape.OTHER || !"select".equals(shape.getStatement())
+                || samples.containsKey(shape)) {
+            return;
+        }
+        samples.putIfAbsent(shape, withValues(statementInformation, sql));
+    }
+
+    // use_sql_comments 의 JPQL 주석에 있는 ?1 같은 물음표도 getSqlWithValues 가 값 자리로 보고 채움
+    // -> 값이 하나씩 밀리므로 (username = NULL 등) 주석을 지운 SQL 에 값을 채우고 원래 SQL 로 돌려 둠
+    private static String withValues(StatementInformation statementInformation, String sql) {
+        String withoutComments = COMMENT.matcher(sql).replaceAll("").trim();
+        if (!(statementInformation instanceof PreparedStatementInformation)) {
+            return withoutComments;
+        }
+        String original = statementInformation.getStatementQuery();
+        statementInformation.setStatementQuery(withoutComments);
+        try {
+            return statementInformation.getSqlWithValues();
+        } finally {
+            statementInformation.setStatementQuery(original);
+        }
+    }
+
+    // IndexAdvisor 용 : select 모양 -> 값이 들어간 SQL
+    Map<SqlShape, String> samples() {
+        return samples;
+    }
+
+    private SqlShape shape(String sql) {
+        if (sql == null || sql.isEmpty()) {
+            return null;
+        }
+        SqlShape shape = shapesBySql.get(sql);
+        if (shape != null) {
+            return shape;
+        }
+        String normalized = SqlShape.normalize(sql);
+        shape = shapes.get(normalized);
+        if (shape == null) {
+            if (shapeCount.get() >= maxShapes) {
+                shape = SqlShape.OTHER;
+            } else {
+                shape = shapes.computeIfAbsent(normalized, key -> {
+                    shapeCount.incrementAndGet();
+                    return SqlShape.of(key);
+                });
+            }
+        }
+        if (shapesBySql.size() < maxStatements) {
+            shapesBySql.putIfAbsent(sql, shape);
+        }
+        return shape;
+    }
+
+    private Origin origin() {
+        QueryContext.Frame frame = QueryContext.current();
+        Map<String, Origin> byRepository = origins.get(frame.endpoint);
+        if (byRepository == null) {
+            byRepository = origins.computeIfAbsent(frame.endpoint, key -> new ConcurrentHashMap<>());
+        }
+        Origin origin = byRepository.get(frame.repositoryMethod);
+        if (origin == null) {
+            String endpoint = frame.endpoint;
+            origin = byRepository.computeIfAbsent(frame.repositoryMethod, repositoryMethod -> new Origin(endpoint, repositoryMethod));
+        }
+        return origin;
+    }
+
+    // /actuator/queries 용 : 실행 시간 합이 큰 순서
+    public List<QueryStats> snapshot() {
+        List<QueryStats> stats = new ArrayList<>();
+        for (Map<String, Origin> byRepository : origins.values()) {
+            for (Origin origin : byRepository.values()) {
+                for (Map.Entry<SqlShape, ShapeMeters> entry : origin.shapes.entrySet()) {
+                    stats.add(QueryStats.of(origin.endpoint, origin.repositoryMethod, entry.getKey(),
+                            entry.getValue().time, entry.getValue().rows, origin.acquire));
+                }
+            }
+        }
+        stats.sort((a, b) -> Double.compare(b.getTotalMillis(), a.getTotalMillis()));
+        return stats;
+    }
+
+    private final class Origin {
+        private final String endpoint;
+        private final String repositoryMethod;
+        private final Timer acquire;
+        private final Map<SqlShape, ShapeMeters> shapes = new ConcurrentHashMap<>();
+
+        private Origin(String endpoint, String repositoryMethod) {
+            this.endpoint = endpoint;
+            this.repositoryMethod = repositoryMethod;
+            this.acquire = histogram(Timer.builder("db.connection.acquire"))
+                    .tag("endpoint", endpoint)
+                    .tag("repository", repositoryMethod)
+                    .register(meterRegistry);
+        }
+
+        private ShapeMeters meters(SqlShape shape) {
+            ShapeMeters meters = shapes.get(shape);
+            if (meters == null) {
+                meters = shapes.computeIfAbsent(shape, key -> new ShapeMeters(this, key));
+            }
+            return meters;
+        }
+    }
+
+    private final class ShapeMeters {
+        private final Timer time;
+        private final DistributionSummary rows;
+
+        private ShapeMeters(Origin origin, SqlShape shape) {
+            this.time = histogram(Timer.builder("db.query"))
+                    .tag("endpoint", origin.endpoint)
+                    .tag("repository", origin.repositoryMethod)
+                    .tag("shape", shape.getId())
+                    .tag("statement", shape.getStatement())
+                    .register(meterRegistry);
+            this.rows = DistributionSummary.builder("db.query.rows")
+                    .tag("endpoint", origin.endpoint)
+                    .tag("repository", origin.repositoryMethod)
+                    .tag("shape", shape.getId())
+                    .tag("statement", shape.getStatement())
+                    .register(meterRegistry);
+        }
+    }
+
+    private Timer.Builder histogram(Timer.Builder builder) {
+        if (!histogram) {
+            return builder;
+        }
+        return builder.publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+// /actuator/queries 응답 한 줄 : endpoint / 리포지토리 메서드 / SQL 모양별 누적값
+@Getter
+public class QueryStats {
+
+    private final String endpoint;
+    private final String repository;
+    private final String shape;
+    private final String statement;
+    private final String sql;
+    private final long count;
+    private final double totalMillis;
+    private final double meanMillis;
+    private final double maxMillis;
+    private final double rowsTotal;
+    private final double rowsMax;
+    private final long connectionAcquires;
+    private final double connectionAcquireMeanMillis;
+
+    private QueryStats(String endpoint, String repository, SqlShape shape, HistogramSnapshot time,
+                       DistributionSummary rows, Timer acquire) {
+        this.endpoint = endpoint;
+        this.repository = repository;
+        this.shape = shape.getId();
+        this.statement = shape.getStatement();
+        this.sql = shape.getSql();
+        this.count = time.count();
+        this.totalMillis = time.total(TimeUnit.MILLISECONDS);
+        this.meanMillis = time.mean(TimeUnit.MILLISECONDS);
+        this.maxMillis = time.max(TimeUnit.MILLISECONDS);
+        this.rowsTotal = rows.totalAmount();
+        this.rowsMax = rows.max();
+        this.connectionAcquires = acquire.count();
+        this.connectionAcquireMeanMillis = acquire.mean(TimeUnit.MILLISECONDS);
+    }
+
+    static QueryStats of(String endpoint, String repository, SqlShape shape, Timer time,
+                         DistributionSummary rows, Timer acquire) {
+        return new QueryStats(endpoint, repository, shape, time.takeSnapshot(), rows, acquire);
+    }
+}
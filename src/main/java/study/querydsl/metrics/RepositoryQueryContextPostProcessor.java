@@ -0,0 +1,84 @@
+package study.querydsl.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 리포지토리 빈(스프링 데이터 리포지토리 / @Repository 클래스)의 메서드 호출 동안
+// QueryContext 에 "MemberRepository.searchPage" 같은 이름을 걸어 둠
+// - 이미 프록시(@Transactional, 스프링 데이터)면 맨 앞에 인터셉터를 추가 -> 트랜잭션 시작(커넥션 획득)도 해당 메서드로 집계
+// - Ordered 를 구현하지 않음 -> 자동 프록시 생성기보다 뒤에 실행되어 이미 만들어진 프록시에 붙음
+public class RepositoryQueryContextPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        String repositoryName = repositoryName(bean);
+        if (repositoryName == null) {
+            return bean;
+        }
+
+        RepositoryMethodInterceptor interceptor = new RepositoryMethodInterceptor(repositoryName);
+        if (bean instanceof Advised && !((Advised) bean).isFrozen()) {
+            ((Advised) bean).addAdvice(0, interceptor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(interceptor);
+        return proxyFactory.getProxy(ClassUtils.getDefaultClassLoader());
+    }
+
+    private static String repositoryName(Object bean) {
+        // 스프링 데이터 리포지토리 : 대상은 SimpleJpaRepository 이므로 프록시가 구현한 리포지토리 인터페이스 이름을 사용
+        if (bean instanceof Advised) {
+            for (Class<?> proxied : ((Advised) bean).getProxiedInterfaces()) {
+                if (org.springframework.data.repository.Repository.class.isAssignableFrom(proxied)
+                        && !proxied.getName().startsWith("org.springframework.")) {
+                    return proxied.getSimpleName();
+                }
+            }
+        }
+        Class<?> targetClass = ClassUtils.getUserClass(AopUtils.getTargetClass(bean));
+        if (AnnotatedElementUtils.hasAnnotation(targetClass, org.springframework.stereotype.Repository.class)) {
+            return targetClass.getSimpleName();
+        }
+        return null;
+    }
+
+    private static final class RepositoryMethodInterceptor implements MethodInterceptor {
+
+        private final String repositoryName;
+        // 메서드별 이름은 한 번만 만듦
+        private final Map<Method, String> names = new ConcurrentHashMap<>();
+
+        private RepositoryMethodInterceptor(String repositoryName) {
+            this.repositoryName = repositoryName;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method method = invocation.getMethod();
+            String name = names.get(method);
+            if (name == null) {
+                name = names.computeIfAbsent(method, m -> repositoryName + "." + m.getName());
+            }
+            if (!QueryContext.enterRepository(name)) {
+                return invocation.proceed();
+            }
+            try {
+                return invocation.proceed();
+            } finally {
+                QueryContext.exitRepository();
+            }
+        }
+    }
+}
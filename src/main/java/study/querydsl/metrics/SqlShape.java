@@ -0,0 +1,158 @@
+package study.querydsl.metrics;
+
+import java.util.Locale;
+
+// 값만 다른 SQL 을 하나로 묶은 모양
+// - 문자열 / 숫자 리터럴 -> ?
+// - IN (?, ?, ?) 처럼 개수만 다른 파라미터 목록 -> (?...)
+// - 주석 제거, 공백 정리
+// 같은 모양은 같은 인스턴스를 쓰도록 QueryMetricsListener 가 캐시 (equals 는 기본 동일성 비교)
+public final class SqlShape {
+
+    static final SqlShape OTHER = new SqlShape("other", "other", "(too many shapes)");
+
+    private final String id;
+    private final String statement;
+    private final String sql;
+
+    private SqlShape(String id, String statement, String sql) {
+        this.id = id;
+        this.statement = statement;
+        this.sql = sql;
+    }
+
+    static SqlShape of(String normalizedSql) {
+        return new SqlShape(String.format("%08x", normalizedSql.hashCode()), statementOf(normalizedSql), normalizedSql);
+    }
+
+    // 메트릭 태그로 쓰는 짧은 이름
+    public String getId() {
+        return id;
+    }
+
+    // select / insert / update / delete / other
+    public String getStatement() {
+        return statement;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    static String normalize(String sql) {
+        StringBuilder sb = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                // 주석 (use_sql_comments 의 JPQL 등) 은 버림
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i + 2);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '\'') {
+                // 문자열 리터럴 ('' 은 이스케이프)
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                appendParameter(sb);
+            } else if (Character.isDigit(c) && !partOfIdentifier(sb)) {
+                while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                appendParameter(sb);
+            } else if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+            } else if (c == '?') {
+                i++;
+                appendParameter(sb);
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        int end = sb.length();
+        while (end > 0 && sb.charAt(end - 1) == ' ') {
+            end--;
+        }
+        sb.setLength(end);
+        return sb.toString();
+    }
+
+    // "?, ?" 처럼 이어지는 파라미터는 "?..." 하나로
+    private static void appendParameter(StringBuilder sb) {
+        int end = sb.length();
+        while (end > 0 && sb.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (end > 0 && sb.charAt(end - 1) == ',') {
+            int before = end - 1;
+            while (before > 0 && sb.charAt(before - 1) == ' ') {
+                before--;
+            }
+            if (before >= 1 && sb.charAt(before - 1) == '?') {
+                sb.setLength(before);
+                sb.append("...");
+                return;
+            }
+            if (before >= 4 && sb.charAt(before - 1) == '.' && sb.substring(before - 4, before).equals("?...")) {
+                sb.setLength(before);
+                return;
+            }
+        }
+        sb.append('?');
+    }
+
+    private static boolean partOfIdentifier(StringBuilder sb) {
+        if (sb.length() == 0) {
+            return false;
+        }
+        char previous = sb.charAt(sb.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '$';
+    }
+
+    private static String statementOf(String sql) {
+        int start = 0;
+        while (start < sql.length() && (sql.charAt(start) == '(' || sql.charAt(start) == ' ')) {
+            start++;
+        }
+        int end = start;
+        while (end < sql.length() && Character.isLetter(sql.charAt(end))) {
+            end++;
+        }
+        String keyword = sql.substring(start, end).toLowerCase(Locale.ROOT);
+        switch (keyword) {
+            case "select":
+            case "with":
+                return "select";
+            case "insert":
+            case "update":
+            case "delete":
+            case "merge":
+                return keyword;
+            default:
+                return "other";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return id + " " + sql;
+    }
+}
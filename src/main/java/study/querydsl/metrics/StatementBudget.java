@@ -0,0 +1,90 @@
+package study.querydsl.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// 요청 하나가 실행할 수 있는 SQL statement 예산
+// - max-statements : 요청당 전체 statement 수
+// - max-repeats    : 같은 모양(값만 다른 SQL)의 반복 횟수 (루프 안 LAZY 로딩 같은 N+1)
+// - action         : log (요청 끝에 경고 로그) | reject (넘는 statement 를 실행하기 전에 예외)
+@Slf4j
+@Component
+public class StatementBudget {
+
+    public enum Action {
+        LOG, REJECT
+    }
+
+    private final boolean enabled;
+    private final int maxStatements;
+    private final int maxRepeats;
+    private final Action action;
+    private final MeterRegistry meterRegistry;
+
+    public StatementBudget(MeterRegistry meterRegistry,
+                           @Value("${app.statement-budget.enabled:true}") boolean enabled,
+                           @Value("${app.statement-budget.max-statements:100}") int maxStatements,
+                           @Value("${app.statement-budget.max-repeats:20}") int maxRepeats,
+                           @Value("${app.statement-budget.action:log}") Action action) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxStatements = maxStatements;
+        this.maxRepeats = maxRepeats;
+        this.action = action;
+    }
+
+    // 요청 시작 (꺼져 있으면 null)
+    StatementCounter begin() {
+        return enabled ? StatementCounter.start(this) : null;
+    }
+
+    // statement 실행 직전 (StatementCounter.record 에서 호출)
+    void check(StatementCounter counter, SqlShape shape) {
+        if (action != Action.REJECT) {
+            return;
+        }
+        if (counter.getTotal() > maxStatements) {
+            exceeded("statements");
+            throw new StatementBudgetExceededException(
+                    "요청당 SQL statement 예산 " + maxStatements + " 개 초과. endpoint=" + QueryContext.endpoint());
+        }
+        if (counter.count(shape) > maxRepeats) {
+            exceeded("repeats");
+            throw new StatementBudgetExceededException(
+                    "같은 SQL 이 " + maxRepeats + " 번 넘게 실행됨 (N+1 의심). endpoint=" + QueryContext.endpoint()
+                            + ", repository=" + QueryContext.repositoryMethod() + ", sql=" + shape.getSql());
+        }
+    }
+
+    // 요청 끝 : log 모드면 여기서 한 번만 판정
+    void end(StatementCounter counter) {
+        if (counter == null) {
+            return;
+        }
+        counter.close();
+        if (action != Action.LOG) {
+            return;
+        }
+        if (counter.getTotal() > maxStatements) {
+            exceeded("statements");
+            log.warn("SQL statement budget exceeded. endpoint={}, statements={}, budget={}, top={}",
+                    QueryContext.endpoint(), counter.getTotal(), maxStatements, counter.repeated(2));
+        }
+        if (counter.getMaxRepeats() > maxRepeats) {
+            exceeded("repeats");
+            log.warn("Repeated SQL (possible N+1). endpoint={}, maxRepeats={}, budget={}, repeated={}",
+                    QueryContext.endpoint(), counter.getMaxRepeats(), maxRepeats, counter.repeated(maxRepeats + 1));
+        }
+    }
+
+    private void exceeded(String reason) {
+        Counter.builder("db.statement.budget.exceeded")
+                .tag("endpoint", QueryContext.endpoint())
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,9 @@
+package study.querydsl.metrics;
+
+// app.statement-budget.action=reject 일 때 예산을 넘는 statement 를 실행하기 전에 던짐
+public class StatementBudgetExceededException extends RuntimeException {
+
+    public StatementBudgetExceededException(String message) {
+        super(message);
+    }
+}
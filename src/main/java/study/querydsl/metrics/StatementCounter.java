@@ -0,0 +1,118 @@
+package study.querydsl.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 현재 스레드에서 실행한 SQL statement 수를 SQL 모양별로 셈 (QueryMetricsListener 가 실행 직전에 기록)
+// - 값만 다른 같은 모양이 여러 번 -> 루프에서 LAZY 로딩 등 N+1 의심
+// - 요청 단위 : StatementBudget 이 요청마다 시작해서 예산 초과를 로그 / 거부
+// - 테스트 단위 : try (StatementCounter statements = StatementCounter.start()) { ... statements.assertAtMost(2); }
+// 중첩 가능 (안쪽에서 센 것은 바깥쪽에도 더해짐)
+public class StatementCounter implements AutoCloseable {
+
+    private final StatementCounter parent;
+    private final StatementBudget budget;
+    private final Map<SqlShape, int[]> byShape = new HashMap<>();
+    private int total;
+    private int maxRepeats;
+    private boolean closed;
+
+    StatementCounter(StatementCounter parent, StatementBudget budget) {
+        this.parent = parent;
+        this.budget = budget;
+    }
+
+    public static StatementCounter start() {
+        return start(null);
+    }
+
+    static StatementCounter start(StatementBudget budget) {
+        StatementCounter counter = new StatementCounter(QueryContext.counter(), budget);
+        QueryContext.setCounter(counter);
+        return counter;
+    }
+
+    // 병렬 count 처럼 다른 스레드에서도 기록할 수 있어서 synchronized
+    synchronized void record(SqlShape shape) {
+        total++;
+        int[] count = byShape.get(shape);
+        if (count == null) {
+            count = new int[1];
+            byShape.put(shape, count);
+        }
+        count[0]++;
+        maxRepeats = Math.max(maxRepeats, count[0]);
+        if (budget != null) {
+            budget.check(this, shape);
+        }
+        if (parent != null) {
+            parent.record(shape);
+        }
+    }
+
+    public synchronized int getTotal() {
+        return total;
+    }
+
+    // 가장 많이 반복된 모양의 실행 횟수
+    public synchronized int getMaxRepeats() {
+        return maxRepeats;
+    }
+
+    synchronized int count(SqlShape shape) {
+        int[] count = byShape.get(shape);
+        return count == null ? 0 : count[0];
+    }
+
+    // times 번 이상 실행된 모양 : SQL -> 횟수 (많은 순)
+    public synchronized Map<String, Integer> repeated(int times) {
+        List<Map.Entry<SqlShape, int[]>> entries = new ArrayList<>(byShape.entrySet());
+        entries.sort((a, b) -> Integer.compare(b.getValue()[0], a.getValue()[0]));
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<SqlShape, int[]> entry : entries) {
+            if (entry.getValue()[0] >= times) {
+                result.put(entry.getKey().getSql(), entry.getValue()[0]);
+            }
+        }
+        return result;
+    }
+
+    public StatementCounter assertAtMost(int statements) {
+        int actual = getTotal();
+        if (actual > statements) {
+            throw new AssertionError("SQL statement " + statements + " 개 이하를 기대했지만 " + actual + " 개 실행. " + repeated(1));
+        }
+        return this;
+    }
+
+    // 같은 모양(값만 다른 SQL)이 한 번씩만 실행되었는지
+    public StatementCounter assertNoRepeats() {
+        return assertRepeatsAtMost(1);
+    }
+
+    public StatementCounter assertRepeatsAtMost(int times) {
+        if (getMaxRepeats() > times) {
+            throw new AssertionError("같은 SQL 이 " + times + " 번 넘게 실행됨 (N+1 의심). " + repeated(times + 1));
+        }
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (QueryContext.counter() == this) {
+            QueryContext.setCounter(parent);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "StatementCounter(total=" + total + ", maxRepeats=" + maxRepeats + ")";
+    }
+}
@@ -0,0 +1,30 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+// 청크 단위 벌크 update / delete 호출 한 번의 설정
+// BulkProperties.options() 로 member.bulk.* 기본값을 복사해서 만들고, 그 호출에만 필요한 값을 고침
+@Getter @Setter
+@ToString
+public class BulkOptions {
+
+    // 한 트랜잭션(커밋)에서 바꾸는 최대 회원 수
+    private int chunkSize;
+
+    // 청크 사이에 쉬는 시간 -> 다른 요청이 락 / 커넥션 / IO 를 쓸 틈을 줌
+    private Duration pause;
+
+    // 청크가 끝날 때마다 지금까지의 진행 상황으로 호출
+    @ToString.Exclude
+    private Consumer<BulkReport> progress;
+
+    BulkOptions(int chunkSize, Duration pause) {
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+    }
+}
@@ -0,0 +1,34 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// 청크 단위 벌크 update / delete 기본값 (application.yml 의 member.bulk.*)
+// 모든 호출이 같이 쓰는 빈이므로 바꿀 수 없음 -> 호출마다 다르게 하려면 options() 로 복사해서 고침
+@ConstructorBinding
+@ConfigurationProperties(prefix = "member.bulk")
+@Getter
+@ToString
+public class BulkProperties {
+
+    // 한 트랜잭션(커밋)에서 바꾸는 최대 회원 수
+    private final int chunkSize;
+
+    // 청크 사이에 쉬는 시간 -> 다른 요청이 락 / 커넥션 / IO 를 쓸 틈을 줌
+    private final Duration pause;
+
+    public BulkProperties(@DefaultValue("1000") int chunkSize, @DefaultValue("0ms") Duration pause) {
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+    }
+
+    // 이 기본값으로 채운 호출 한 번용 옵션
+    public BulkOptions options() {
+        return new BulkOptions(chunkSize, pause);
+    }
+}
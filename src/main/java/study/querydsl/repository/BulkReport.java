@@ -0,0 +1,32 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// 청크 단위 벌크 연산 결과 (진행 중에는 그때까지의 값)
+@Getter
+@ToString
+public class BulkReport {
+
+    private final String operation;
+    private final long rows;
+    private final int chunks;
+    // 마지막으로 처리한 청크의 member_id 상한 (다음 청크는 이보다 큰 id 부터)
+    private final Long lastId;
+    private final long elapsedMillis;
+    // 중간에 인터럽트로 멈췄으면 false
+    private final boolean completed;
+
+    public BulkReport(String operation, long rows, int chunks, Long lastId, long elapsedMillis, boolean completed) {
+        this.operation = operation;
+        this.rows = rows;
+        this.chunks = chunks;
+        this.lastId = lastId;
+        this.elapsedMillis = elapsedMillis;
+        this.completed = completed;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? rows : rows * 1000.0 / elapsedMillis;
+    }
+}
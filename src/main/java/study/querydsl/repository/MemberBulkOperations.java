@@ -0,0 +1,219 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+// 조건에 맞는 회원을 member_id 구간(청크)으로 나눠서 update / delete
+// - 청크 경계 : 조건에 맞는 회원을 id 순으로 chunkSize 번째 id (keyset) -> 청크마다 최대 chunkSize 건만 잠금
+// - 호출한 쪽에 쓰기 트랜잭션이 없으면 청크마다 새 트랜잭션으로 커밋하고 청크 사이에 pause 만큼 쉼
+// - 쓰기 트랜잭션 안에서 부르면 (다른 트랜잭션이 그 트랜잭션의 락을 기다리다 멈추지 않도록) 그 트랜잭션 안에서 청크만 나눠서 실행
+// 영속성 컨텍스트 동기화 : 시작 전에 flush, 끝나면 처리한 id 구간의 Member 를 detach (delete 는 clear)
+// -> 벌크 뒤에 em.flush() / em.clear() 를 따로 하지 않아도 다시 조회하면 DB 값
+// 조건은 검색과 같지만 팀 없는 회원도 포함 (팀명 조건은 서브쿼리)
+@Slf4j
+@Component
+@EnableConfigurationProperties(BulkProperties.class)
+public class MemberBulkOperations {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTransaction;
+    private final BulkProperties defaults;
+
+    public MemberBulkOperations(EntityManager em, PlatformTransactionManager transactionManager, BulkProperties defaults) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.defaults = defaults;
+    }
+
+    public BulkReport addAge(MemberSearchCondition condition, int delta, BulkOptions options) {
+        return run("addAge", condition, options, range -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(delta))
+                .where(range)
+                .execute());
+    }
+
+    public BulkReport rename(MemberSearchCondition condition, String username, BulkOptions options) {
+        return run("rename", condition, options, range -> queryFactory
+                .update(member)
+                .set(member.username, username)
+                .where(range)
+                .execute());
+    }
+
+    public BulkReport delete(MemberSearchCondition condition, BulkOptions options) {
+        return run("delete", condition, options, range -> queryFactory
+                .delete(member)
+                .where(range)
+                .execute());
+    }
+
+    private BulkReport run(String operation, MemberSearchCondition condition, BulkOptions options,
+                           Function<Predicate, Long> chunk) {
+        BulkOptions opts = options != null ? options : defaults.options();
+        if (opts.getChunkSize() < 1) {
+            throw new IllegalArgumentException("chunkSize 는 1 이상이어야 합니다. " + opts);
+        }
+        boolean joined = TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (joined) {
+            em.flush();
+        }
+
+        long start = System.nanoTime();
+        Long lastId = null;
+        long rows = 0;
+        int chunks = 0;
+        boolean completed = true;
+        while (true) {
+            Long lowerExclusive = lastId;
+            long[] result = joined
+                    ? runChunk(condition, lowerExclusive, opts.getChunkSize(), chunk)
+                    : chunkTransaction.execute(status -> runChunk(condition, lowerExclusive, opts.getChunkSize(), chunk));
+            if (result == null) {
+                break;
+            }
+            lastId = result[0];
+            rows += result[1];
+            chunks++;
+
+            BulkReport progress = report(operation, rows, chunks, lastId, start, true);
+            log.debug("bulk {} progress. {}", operation, progress);
+            if (opts.getProgress() != null) {
+                opts.getProgress().accept(progress);
+            }
+            if (!joined && !opts.getPause().isZero() && !pause(opts)) {
+                completed = false;
+                break;
+            }
+        }
+
+        if (lastId != null) {
+            synchronizePersistenceContext(operation, lastId);
+        }
+        BulkReport report = report(operation, rows, chunks, lastId, start, completed);
+        log.info("bulk {} finished. {}", operation, report);
+        return report;
+    }
+
+    // { 청크 마지막 id, 바뀐 행 수 }, 더 없으면 null
+    private long[] runChunk(MemberSearchCondition condition, Long lowerExclusive, int chunkSize,
+                            Function<Predicate, Long> chunk) {
+        BooleanExpression matches = matches(condition);
+        Long upperInclusive = queryFactory
+                .select(member.id)
+                .from(member)
+                .where(matches, idGt(lowerExclusive))
+                .orderBy(member.id.asc())
+                .offset(chunkSize - 1)
+                .fetchFirst();
+        if (upperInclusive == null) {
+            // 남은 회원이 chunkSize 보다 적음 -> 마지막 청크
+            upperInclusive = queryFactory
+                    .select(member.id.max())
+                    .from(member)
+                    .where(matches, idGt(lowerExclusive))
+                    .fetchOne();
+            if (upperInclusive == null) {
+                return null;
+            }
+        }
+        BooleanExpression range = member.id.loe(upperInclusive);
+        if (lowerExclusive != null) {
+            range = member.id.gt(lowerExclusive).and(range);
+        }
+        long rows = chunk.apply(matches == null ? range : range.and(matches));
+        return new long[]{upperInclusive, rows};
+    }
+
+    // 같은 트랜잭션(영속성 컨텍스트)에 올라와 있는 바뀐 회원은 DB 와 달라졌으므로 떼어냄
+    private void synchronizePersistenceContext(String operation, long lastId) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        if ("delete".equals(operation)) {
+            // 삭제된 회원을 가리키는 Team.members 컬렉션 등도 있으므로 전부 비움 (시작할 때 flush 했음)
+            em.clear();
+            return;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        List<Object> stale = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member) {
+                Long id = (Long) entry.getValue().getId();
+                if (id != null && id <= lastId) {
+                    stale.add(entry.getKey());
+                }
+            }
+        }
+        stale.forEach(em::detach);
+    }
+
+    private boolean pause(BulkOptions opts) {
+        try {
+            Thread.sleep(opts.getPause().toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("bulk operation interrupted, stopping after current chunk");
+            return false;
+        }
+    }
+
+    private static BulkReport report(String operation, long rows, int chunks, Long lastId, long start, boolean completed) {
+        return new BulkReport(operation, rows, chunks, lastId, (System.nanoTime() - start) / 1_000_000, completed);
+    }
+
+    private static BooleanExpression idGt(Long lowerExclusive) {
+        return lowerExclusive != null ? member.id.gt(lowerExclusive) : null;
+    }
+
+    private static BooleanExpression matches(MemberSearchCondition condition) {
+        BooleanExpression result = null;
+        if (hasText(condition.getUserName())) {
+            result = and(result, member.username.eq(condition.getUserName()));
+        }
+        if (hasText(condition.getTeamName())) {
+            // 벌크 update / delete 에서는 조인을 쓸 수 없어서 서브쿼리
+            result = and(result, member.team.id.in(
+                    JPAExpressions.select(team.id).from(team).where(team.name.eq(condition.getTeamName()))));
+        }
+        if (condition.getAgeGoe() != null) {
+            result = and(result, member.age.goe(condition.getAgeGoe()));
+        }
+        if (condition.getAgeLoe() != null) {
+            result = and(result, member.age.loe(condition.getAgeLoe()));
+        }
+        return result;
+    }
+
+    private static BooleanExpression and(BooleanExpression left, BooleanExpression right) {
+        return left == null ? right : left.and(right);
+    }
+}
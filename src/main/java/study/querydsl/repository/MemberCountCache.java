@@ -0,0 +1,193 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.event.BulkChangedEvent;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.event.TeamChangedEvent;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+// searchPageComplex 의 countQuery 결과 캐시
+// - 키 : 정규화된 MemberSearchCondition
+// - TTL 이 지나거나, 조건에 걸릴 수 있는 Member/Team 변경 / 벌크 연산이 커밋되면 제거
+//   (flush 때 지우면 커밋 전에 다른 요청이 이전 count 를 다시 채울 수 있음)
+// - 같은 조건의 count 가 동시에 들어오면 한 번만 실행하고 나머지는 그 결과를 기다림
+// 쓰기 트랜잭션 안에서는 자기 변경(아직 커밋 전)이 count 에 섞이므로 캐시를 거치지 않음
+@Slf4j
+@Component
+public class MemberCountCache {
+
+    private final Map<MemberSearchCondition, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<MemberSearchCondition, CompletableFuture<Long>> inFlight = new ConcurrentHashMap<>();
+
+    // 무효화가 일어날 때마다 증가 -> 로딩 중에 무효화가 끼어들었으면 그 결과는 저장하지 않음
+    private final AtomicLong generation = new AtomicLong();
+
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter collapsed;
+    private final Counter bypass;
+    private final Counter evictions;
+
+    public MemberCountCache(@Value("${member.count-cache.ttl:30s}") Duration ttl,
+                            @Value("${member.count-cache.max-entries:10000}") int maxEntries,
+                            MeterRegistry meterRegistry) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.collapsed = requests(meterRegistry, "collapsed");
+        this.bypass = requests(meterRegistry, "bypass");
+        this.evictions = meterRegistry.counter("member.count.cache.evictions");
+        meterRegistry.gaugeMapSize("member.count.cache.size", Collections.emptyList(), entries);
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("member.count.cache.requests")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public long get(MemberSearchCondition condition, LongSupplier loader) {
+        if (!cacheable()) {
+            bypass.increment();
+            return loader.getAsLong();
+        }
+
+        MemberSearchCondition key = MemberSearchConditions.normalize(condition);
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.isExpired()) {
+            hits.increment();
+            return entry.count;
+        }
+
+        CompletableFuture<Long> mine = new CompletableFuture<>();
+        CompletableFuture<Long> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            collapsed.increment();
+            return await(running);
+        }
+
+        misses.increment();
+        long startGeneration = generation.get();
+        try {
+            long count = loader.getAsLong();
+            if (generation.get() == startGeneration) {
+                store(key, count);
+            }
+            mine.complete(count);
+            return count;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMemberChangeCommitted(MemberChangedEvent event) {
+        if (event.isBeforeUnknown()) {
+            evictAll();
+            return;
+        }
+        evictIf(condition -> MemberSearchConditions.matches(condition, event.getBefore())
+                || MemberSearchConditions.matches(condition, event.getAfter()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTeamChangeCommitted(TeamChangedEvent event) {
+        // 팀 insert 는 member 기준 count 에 영향 없음
+        if (event.getNameBefore() == null) {
+            return;
+        }
+        evictIf(condition -> condition.getTeamName() != null
+                && (condition.getTeamName().equals(event.getNameBefore())
+                || condition.getTeamName().equals(event.getNameAfter())));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBulkChangeCommitted(BulkChangedEvent event) {
+        if ("member".equals(event.getTable()) || "team".equals(event.getTable())) {
+            evictAll();
+        }
+    }
+
+    public void evictAll() {
+        generation.incrementAndGet();
+        int size = entries.size();
+        entries.clear();
+        evictions.increment(size);
+    }
+
+    private void evictIf(Predicate<MemberSearchCondition> affected) {
+        generation.incrementAndGet();
+        entries.keySet().removeIf(condition -> {
+            boolean evict = affected.test(condition);
+            if (evict) {
+                evictions.increment();
+            }
+            return evict;
+        });
+    }
+
+    private void store(MemberSearchCondition key, long count) {
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(Entry::isExpired);
+            if (entries.size() >= maxEntries) {
+                log.debug("count cache is full, skip caching. condition={}", key);
+                return;
+            }
+        }
+        entries.put(key, new Entry(count, System.nanoTime() + ttlNanos));
+    }
+
+    private static long await(CompletableFuture<Long> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static boolean cacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static final class Entry {
+        private final long count;
+        private final long expiresAt;
+
+        private Entry(long count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+
+import static org.springframework.util.StringUtils.hasText;
+
+// searchPageEstimated 의 전체 건수 추정
+// - TeamAgeHistogram 의 팀별 나이 -> 회원 수 에서 조건에 맞는 팀 / 나이만 더함
+// - 나이별로 세어 두므로 나이 조건은 정확하고, 커밋된 변경이 반영되기 전 / 다른 노드의 변경만큼 다를 수 있음
+//   -> 오차 범위(errorBound)는 마지막으로 다시 만든 뒤 이 노드에서 반영한 회원 변경 수
+//      (변경 하나는 건수를 최대 1 바꿈, 다른 노드 / JDBC 의 변경도 그만큼 있었다고 봄)
+//   -> 다시 만든 뒤 변경이 없으면 0 (스캔한 그대로이므로 정확한 값으로 취급, isExact)
+// - userName 조건은 나이별 집계로 알 수 없으므로 null (호출하는 쪽에서 정확한 count)
+@Component
+public class MemberCountEstimator {
+
+    private final TeamAgeHistogram histogram;
+    private final boolean enabled;
+
+    private final Counter estimates;
+    private final Counter fallbacks;
+
+    public MemberCountEstimator(TeamAgeHistogram histogram,
+                                MeterRegistry meterRegistry,
+                                @Value("${member.count-estimate.enabled:true}") boolean enabled) {
+        this.histogram = histogram;
+        this.enabled = enabled;
+        this.estimates = Counter.builder("member.count.estimate").tag("result", "estimated").register(meterRegistry);
+        this.fallbacks = Counter.builder("member.count.estimate").tag("result", "exact").register(meterRegistry);
+    }
+
+    // 추정할 수 없으면 null
+    public Estimate estimate(MemberSearchCondition condition) {
+        if (!enabled || !histogram.isReady() || hasText(condition.getUserName())) {
+            fallbacks.increment();
+            return null;
+        }
+        String teamName = hasText(condition.getTeamName()) ? condition.getTeamName() : null;
+
+        long[] total = new long[1];
+        histogram.forEachTeam((teamId, name, ages) -> {
+            if (teamName == null || teamName.equals(name)) {
+                total[0] += ages.count(condition.getAgeGoe(), condition.getAgeLoe());
+            }
+        });
+        estimates.increment();
+        return new Estimate(total[0], histogram.changesSinceRebuild());
+    }
+
+    @Getter
+    public static class Estimate {
+        private final long total;
+        private final long errorBound;
+
+        public Estimate(long total, long errorBound) {
+            this.total = total;
+            this.errorBound = errorBound;
+        }
+
+        public boolean isExact() {
+            return errorBound == 0;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package study.querydsl.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// searchSlice 의 커서 토큰
+// 정렬 키는 member_id (PK 라서 유일 -> 별도 tiebreaker 불필요), 클라이언트에는 Base64 문자열로만 노출
+public final class MemberCursor {
+
+    private static final String PREFIX = "m1:";
+
+    private MemberCursor() {
+    }
+
+    public static String encode(Long lastMemberId) {
+        String raw = PREFIX + lastMemberId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // null / 빈 문자열이면 첫 페이지
+    public static Long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("잘못된 커서 입니다. cursor=" + cursor, e);
+        }
+        if (!raw.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("잘못된 커서 입니다. cursor=" + cursor);
+        }
+        try {
+            return Long.valueOf(raw.substring(PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("잘못된 커서 입니다. cursor=" + cursor, e);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDTO;
@@ -21,18 +22,25 @@ import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
+// 조회는 readOnly 트랜잭션 -> 복제 DB 로 라우팅, 하이버네이트 세션도 read-only / FlushMode.MANUAL (스냅샷, 자동 flush 없음)
+// 쓰기 메서드만 @Transactional 로 primary 사용
 @Repository
+@Transactional(readOnly = true)
 public class MemberJpaRepository {
 
     private final EntityManager em;
 
     private JPAQueryFactory queryFactory;
 
-    public MemberJpaRepository(EntityManager em) {
+    private final MemberSearchEngine searchEngine;
+
+    public MemberJpaRepository(EntityManager em, MemberSearchEngine searchEngine) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.searchEngine = searchEngine;
     }
 
+    @Transactional
     public void save(Member member) {
         em.persist(member);
     }
@@ -105,25 +113,11 @@ public class MemberJpaRepository {
     }
 
     // 실전 활용 QueryDSL dinamicQuery
+    // where 절 모양(shape)별로 한 번만 만들어 둔 쿼리에 값만 바인딩 (MemberSearchQueryRegistry)
+    // member.search.engine=sql 이면 QueryDSL SQL 로 실행 (SqlMemberSearchEngine)
+    // 매번 BooleanExpression 을 조립하는 방식은 searchByBuilder 참고
     public List<MemberTeamDTO> searchByDinamicQuery(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDTO(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        member.team.id.as("teamId"),
-                        member.team.name.as("teamName"))
-                )
-                .from(member)
-                .where(
-//                        searchAllCon(condition)
-                        userNameEq(condition.getUserName()),
-                        teamNameEq(condition.getTeamName()),
-                        userAgeGoe(condition.getAgeGoe()),
-                        userAgeLoe(condition.getAgeLoe())
-                )
-                .join(member.team, team)
-                .fetch();
+        return searchEngine.search(condition, 0, -1);
     }
 
     private BooleanExpression userNameEq(String userNameCond) {
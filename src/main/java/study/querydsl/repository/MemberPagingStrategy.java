@@ -0,0 +1,11 @@
+package study.querydsl.repository;
+
+public enum MemberPagingStrategy {
+
+    // member 와 team 을 조인한 채로 offset 만큼 건너뜀 (searchPageComplex)
+    OFFSET,
+
+    // member_id 만으로 offset 페이지를 먼저 찾고, 그 id 들만 team 과 조인해서 DTO 로 조회
+    // offset 이 클수록 건너뛰는 row 가 가벼워져서 유리
+    DEFERRED_JOIN
+}
@@ -2,10 +2,13 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.CursorSlice;
+import study.querydsl.dto.EstimatedPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDTO;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
 
@@ -15,4 +18,27 @@ public interface MemberRepositoryCustom {
 
     Page<MemberTeamDTO> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
 
+    // searchPageComplex 와 같은 content, 전체 건수는 count(*) 대신 팀 / 나이 구간별 회원 수로 추정
+    // 추정할 수 없는 조건(userName), 마지막 페이지, 집계를 다시 만든 뒤 변경이 없으면 정확한 값 (EstimatedPage.isEstimated 로 구분)
+    EstimatedPage<MemberTeamDTO> searchPageEstimated(MemberSearchCondition condition, Pageable pageable);
+
+    // 페이징 방식을 호출마다 선택 (OFFSET 이면 searchPageComplex 와 같음)
+    Page<MemberTeamDTO> searchPage(MemberSearchCondition condition, Pageable pageable, MemberPagingStrategy strategy);
+
+    // offset 대신 member_id 를 기준으로 seek 하는 커서 페이징 (cursor 가 null 이면 첫 페이지)
+    CursorSlice<MemberTeamDTO> searchSlice(MemberSearchCondition condition, String cursor, int size);
+
+    // 결과를 List 로 모으지 않고 forward-only 커서로 한 건씩 읽음
+    // 트랜잭션 안에서 호출하고 다 쓰면 반드시 close (try-with-resources)
+    Stream<MemberTeamDTO> searchStream(MemberSearchCondition condition, int fetchSize);
+
+    // 조건에 맞는 회원을 member_id 청크로 나눠서 벌크 update / delete (MemberBulkOperations)
+    // 쓰기 트랜잭션 밖에서 부르면 청크마다 커밋, options 가 null 이면 member.bulk.* 기본값 (BulkProperties)
+    // 끝나면 영속성 컨텍스트의 바뀐 회원은 detach 되므로 따로 flush / clear 할 필요 없음
+    BulkReport bulkAddAge(MemberSearchCondition condition, int delta, BulkOptions options);
+
+    BulkReport bulkRename(MemberSearchCondition condition, String username, BulkOptions options);
+
+    BulkReport bulkDelete(MemberSearchCondition condition, BulkOptions options);
+
 }
@@ -1,66 +1,181 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.QueryResults;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.CursorSlice;
+import study.querydsl.dto.EstimatedPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDTO;
 import study.querydsl.dto.QMemberTeamDTO;
-import study.querydsl.entity.Member;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
 
+// 조회 전용 -> 복제 DB 로 라우팅, read-only 세션 (MemberJpaRepository 참고)
+@Transactional(readOnly = true)
 public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
 
     private final JPAQueryFactory queryFactory;
+    private final MemberCountCache countCache;
+    private final MemberSearchEngine searchEngine;
+    private final PageCountExecutor pageCountExecutor;
+    private final MemberCountEstimator countEstimator;
+    private final MemberBulkOperations bulkOperations;
+    private final MemberSearchCache searchCache;
+    // searchSlice size 상한 (Pageable 의 max-page-size 처럼 넘으면 상한으로 줄임)
+    private final int maxSliceSize;
 
-    public MemberRepositoryCustomImpl(EntityManager em) {
+    public MemberRepositoryCustomImpl(EntityManager em, MemberCountCache countCache, MemberSearchEngine searchEngine,
+                                      PageCountExecutor pageCountExecutor, MemberCountEstimator countEstimator,
+                                      MemberBulkOperations bulkOperations, MemberSearchCache searchCache,
+                                      @Value("${member.slice.max-size:1000}") int maxSliceSize) {
         this.queryFactory = new JPAQueryFactory(em);
+        this.countCache = countCache;
+        this.searchEngine = searchEngine;
+        this.pageCountExecutor = pageCountExecutor;
+        this.countEstimator = countEstimator;
+        this.bulkOperations = bulkOperations;
+        this.searchCache = searchCache;
+        this.maxSliceSize = maxSliceSize;
     }
 
     @Override
     public Page<MemberTeamDTO> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        // fetchResults 와 같이 content + count 쿼리 (둘 다 member join team), 실행은 member.search.engine 에 따라
+        // 같은 조건 / 페이지는 결과 캐시에서 (MemberSearchCache)
+        return searchCache.page("simple", condition, pageable, () -> {
+            List<MemberTeamDTO> content = searchEngine.search(condition, pageable.getOffset(), pageable.getPageSize());
+            long total = searchEngine.countJoined(condition);
 
-        QueryResults<MemberTeamDTO> results = queryFactory
-                .select(new QMemberTeamDTO(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        member.team.id.as("teamId"),
-                        member.team.name.as("teamName"))
-                )
-                .from(member)
+            return new PageImpl<>(content, pageable, total);
+        });
+    }
+
+    @Override
+    public Page<MemberTeamDTO> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        // content / count 모두 조건 모양(shape)별로 미리 만들어 둔 쿼리에 값만 바인딩해서 실행
+        // count 는 캐시를 거쳐서 실행 (같은 조건이 동시에 들어오면 한 번만 실행)
+        // member.page.parallel-count.enabled 이면 count 는 다른 커넥션에서 content 와 동시에 실행
+        return searchCache.page("complex", condition, pageable, () -> pageCountExecutor.getPage(pageable,
+                () -> searchEngine.search(condition, pageable.getOffset(), pageable.getPageSize()),
+                () -> countCache.get(condition, () -> searchEngine.count(condition))));
+//        return new PageImpl<>(content, pageable, total);
+    }
+
+    @Override
+    public EstimatedPage<MemberTeamDTO> searchPageEstimated(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDTO> content = searchEngine.search(condition, pageable.getOffset(), pageable.getPageSize());
+
+        // content 가 page size 보다 적으면 (첫 페이지 또는 마지막 페이지) 전체 건수를 정확히 알 수 있음
+        if (!content.isEmpty() && content.size() < pageable.getPageSize()) {
+            return EstimatedPage.exact(content, pageable, pageable.getOffset() + content.size());
+        }
+        if (pageable.getOffset() == 0 && content.isEmpty()) {
+            return EstimatedPage.exact(content, pageable, 0);
+        }
+
+        MemberCountEstimator.Estimate estimate = countEstimator.estimate(condition);
+        if (estimate == null) {
+            return EstimatedPage.exact(content, pageable, countCache.get(condition, () -> searchEngine.count(condition)));
+        }
+        // content 로 알 수 있는 최소 건수보다 작게 추정하지 않음
+        long total = Math.max(estimate.getTotal(), pageable.getOffset() + content.size());
+        // 집계를 다시 만든 뒤 변경이 없었으면 오차 범위 0 -> 추정치가 아닌 정확한 값으로
+        if (estimate.isExact()) {
+            return EstimatedPage.exact(content, pageable, total);
+        }
+        return new EstimatedPage<>(content, pageable, total, true, estimate.getErrorBound());
+    }
+
+    @Override
+    public Page<MemberTeamDTO> searchPage(MemberSearchCondition condition, Pageable pageable, MemberPagingStrategy strategy) {
+        if (strategy == MemberPagingStrategy.OFFSET) {
+            return searchPageComplex(condition, pageable);
+        }
+
+        return searchCache.page("ids", condition, pageable, () -> pageCountExecutor.getPage(pageable,
+                () -> searchContentByIds(condition, pageable),
+                () -> countCache.get(condition, () -> searchEngine.count(condition))));
+    }
+
+    private List<MemberTeamDTO> searchContentByIds(MemberSearchCondition condition, Pageable pageable) {
+        // 1단계 : 페이지에 해당하는 member_id 만 조회 (팀명 조건이 없으면 team 은 조인하지 않음)
+        JPAQuery<Long> idQuery = queryFactory
+                .select(member.id)
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            idQuery.join(member.team, team);
+        }
+        List<Long> ids = idQuery
                 .where(
+                        hasText(condition.getTeamName()) ? null : member.team.id.isNotNull(),
                         userNameEq(condition.getUserName()),
                         teamNameEq(condition.getTeamName()),
                         userAgeGoe(condition.getAgeGoe()),
                         userAgeLoe(condition.getAgeLoe())
                 )
+                .orderBy(member.id.asc())
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
-                .join(member.team, team)
-                .fetchResults();
-        List<MemberTeamDTO> content = results.getResults();
-        long total = results.getTotal();
+                .fetch();
 
-        return new PageImpl<>(content, pageable, total);
+        // 2단계 : 해당 id 들만 team 과 조인해서 DTO 로 조회하고, 1단계의 순서대로 정렬
+        List<MemberTeamDTO> content = new ArrayList<>(ids.size());
+        if (!ids.isEmpty()) {
+            Map<Long, MemberTeamDTO> byId = queryFactory
+                    .select(new QMemberTeamDTO(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            member.team.id.as("teamId"),
+                            member.team.name.as("teamName"))
+                    )
+                    .from(member)
+                    .join(member.team, team)
+                    .where(member.id.in(ids))
+                    .fetch()
+                    .stream()
+                    .collect(Collectors.toMap(MemberTeamDTO::getMemberId, Function.identity()));
+            for (Long id : ids) {
+                MemberTeamDTO dto = byId.get(id);
+                // 두 쿼리 사이에 삭제된 회원은 빠짐
+                if (dto != null) {
+                    content.add(dto);
+                }
+            }
+        }
+        return content;
     }
 
     @Override
-    public Page<MemberTeamDTO> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+    public CursorSlice<MemberTeamDTO> searchSlice(MemberSearchCondition condition, String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size 는 1 이상이어야 합니다. size=" + size);
+        }
+        size = Math.min(size, maxSliceSize);
+        Long lastMemberId = MemberCursor.decode(cursor);
+
+        // 다음 페이지 존재 여부를 count 없이 알기 위해 size + 1 건 조회
         List<MemberTeamDTO> content = queryFactory
                 .select(new QMemberTeamDTO(
                         member.id.as("memberId"),
@@ -70,36 +185,39 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
                         member.team.name.as("teamName"))
                 )
                 .from(member)
+                .join(member.team, team)
                 .where(
+                        memberIdGt(lastMemberId),
                         userNameEq(condition.getUserName()),
                         teamNameEq(condition.getTeamName()),
                         userAgeGoe(condition.getAgeGoe()),
                         userAgeLoe(condition.getAgeLoe())
                 )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .join(member.team, team)
+                .orderBy(member.id.asc())
+                .limit(size + 1)
                 .fetch();
 
-        JPAQuery<Member> countQuery = queryFactory
-                .select(member)
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        userNameEq(condition.getUserName()),
-                        teamNameEq(condition.getTeamName()),
-                        userAgeGoe(condition.getAgeGoe()),
-                        userAgeLoe(condition.getAgeLoe())
-                );
-
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        String nextCursor = hasNext ? MemberCursor.encode(content.get(size - 1).getMemberId()) : null;
 
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
-//        return new PageImpl<>(content, pageable, total);
+        return new CursorSlice<>(content, size, hasNext, nextCursor);
     }
 
     @Override
     public List<MemberTeamDTO> search(MemberSearchCondition condition) {
-        return queryFactory
+        return searchCache.list(condition, () -> searchEngine.search(condition, 0, -1));
+    }
+
+
+    @Override
+    public Stream<MemberTeamDTO> searchStream(MemberSearchCondition condition, int fetchSize) {
+        // QueryDSL 4.4 에는 stream() 이 없어서 JPA 쿼리를 꺼내 getResultStream() (하이버네이트 forward-only scroll) 사용
+        // DTO 변환은 QueryDSL 이 하이버네이트 쿼리에 걸어둔 ResultTransformer 가 처리
+        // DTO 프로젝션이라 영속성 컨텍스트에 엔티티가 쌓이지 않음 -> 중간에 clear 할 필요 없음
+        Stream<?> rows = queryFactory
                 .select(new QMemberTeamDTO(
                         member.id.as("memberId"),
                         member.username,
@@ -108,16 +226,43 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
                         member.team.name.as("teamName"))
                 )
                 .from(member)
+                .join(member.team, team)
                 .where(
                         userNameEq(condition.getUserName()),
                         teamNameEq(condition.getTeamName()),
                         userAgeGoe(condition.getAgeGoe()),
                         userAgeLoe(condition.getAgeLoe())
                 )
-                .join(member.team, team)
-                .fetch();
+                .orderBy(member.id.asc())
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.READ_ONLY, true)
+                .createQuery()
+                .getResultStream();
+        return rows.map(MemberTeamDTO.class::cast);
+    }
+
+    // 클래스의 readOnly 트랜잭션을 시작하지 않고, 호출한 쪽 트랜잭션이 있으면 그대로 사용
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BulkReport bulkAddAge(MemberSearchCondition condition, int delta, BulkOptions options) {
+        return bulkOperations.addAge(condition, delta, options);
     }
 
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BulkReport bulkRename(MemberSearchCondition condition, String username, BulkOptions options) {
+        return bulkOperations.rename(condition, username, options);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BulkReport bulkDelete(MemberSearchCondition condition, BulkOptions options) {
+        return bulkOperations.delete(condition, options);
+    }
+
+    private BooleanExpression memberIdGt(Long lastMemberId) {
+        return lastMemberId != null ? member.id.gt(lastMemberId) : null;
+    }
 
     private BooleanExpression userNameEq(String userNameCond) {
         return hasText(userNameCond) ? member.username.eq(userNameCond) : null;
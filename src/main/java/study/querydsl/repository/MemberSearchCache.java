@@ -0,0 +1,264 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.event.BulkChangedEvent;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.event.TeamChangedEvent;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// search / searchPage* 결과 캐시
+// - 키 : 메서드 + 정규화된 MemberSearchCondition + offset / size
+// - 크기는 엔트리 수가 아니라 들고 있는 DTO 수(weight)로 제한하고, 넘으면 가장 오래 안 쓴 엔트리부터 제거 (LRU)
+// - 무효화는 커밋된 변경만 보고 걸릴 수 있는 엔트리만 제거
+//   Member 변경 : 변경 전 / 후 상태가 조건에 걸리는 엔트리 (MemberCountCache 와 같은 판단)
+//   Team 변경  : 팀명 조건이 바뀌기 전 / 후 이름인 엔트리 + 결과에 그 팀 회원이 들어 있는 엔트리 (teamName 이 DTO 에 있음)
+//   벌크 연산 / 이전 상태를 모르는 변경 : 전부
+// - 미터 : member.search.cache.requests{result} / hit.ratio / invalidation.fanout{cause} / weight
+// 쓰기 트랜잭션 안에서는 자기 변경(아직 커밋 전)이 결과에 섞이므로 캐시를 거치지 않음
+// 캐시된 DTO 는 여러 요청이 같이 보므로 호출한 쪽에서 고치지 않아야 함
+@Component
+public class MemberSearchCache {
+
+    private final boolean enabled;
+    private final long maxWeight;
+    private final long ttlNanos;
+
+    // accessOrder = true -> 순회 순서가 오래 안 쓴 순
+    private final LinkedHashMap<SearchKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    // 무효화가 일어날 때마다 증가 -> 로딩 중에 무효화가 끼어들었으면 그 결과는 저장하지 않음
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bypass;
+    private final Counter sizeEvictions;
+    private final DistributionSummary memberFanout;
+    private final DistributionSummary teamFanout;
+    private final DistributionSummary bulkFanout;
+
+    public MemberSearchCache(@Value("${member.search-cache.enabled:true}") boolean enabled,
+                             @Value("${member.search-cache.max-weight:100000}") long maxWeight,
+                             @Value("${member.search-cache.ttl:5m}") Duration ttl,
+                             MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttl.toNanos();
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.bypass = requests(meterRegistry, "bypass");
+        this.sizeEvictions = meterRegistry.counter("member.search.cache.evictions");
+        this.memberFanout = fanout(meterRegistry, "member");
+        this.teamFanout = fanout(meterRegistry, "team");
+        this.bulkFanout = fanout(meterRegistry, "bulk");
+        Gauge.builder("member.search.cache.hit.ratio", this, MemberSearchCache::hitRatio).register(meterRegistry);
+        Gauge.builder("member.search.cache.weight", this, MemberSearchCache::weight).register(meterRegistry);
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("member.search.cache.requests")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // 변경 이벤트 하나로 제거된 엔트리 수
+    private static DistributionSummary fanout(MeterRegistry meterRegistry, String cause) {
+        return DistributionSummary.builder("member.search.cache.invalidation.fanout")
+                .tag("cause", cause)
+                .register(meterRegistry);
+    }
+
+    public List<MemberTeamDTO> list(MemberSearchCondition condition, Supplier<List<MemberTeamDTO>> loader) {
+        return get(new SearchKey("search", MemberSearchConditions.normalize(condition), 0, -1),
+                () -> Collections.unmodifiableList(loader.get()), result -> result);
+    }
+
+    public Page<MemberTeamDTO> page(String operation, MemberSearchCondition condition, Pageable pageable,
+                                    Supplier<Page<MemberTeamDTO>> loader) {
+        return get(new SearchKey(operation, MemberSearchConditions.normalize(condition),
+                pageable.getOffset(), pageable.getPageSize()), loader, Page::getContent);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(SearchKey key, Supplier<T> loader, Function<T, List<MemberTeamDTO>> content) {
+        if (!cacheable()) {
+            bypass.increment();
+            return loader.get();
+        }
+
+        long startGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && !entry.isExpired()) {
+                hits.increment();
+                return (T) entry.value;
+            }
+            if (entry != null) {
+                remove(key);
+            }
+            startGeneration = generation;
+        }
+
+        misses.increment();
+        T value = loader.get();
+        List<MemberTeamDTO> dtos = content.apply(value);
+        synchronized (this) {
+            if (generation == startGeneration) {
+                store(key, new Entry(value, dtos, System.nanoTime() + ttlNanos));
+            }
+        }
+        return value;
+    }
+
+    // 롤백된 변경으로 지우지 않도록, 그리고 커밋 전에 다시 채워지지 않도록 커밋된 뒤에 무효화
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMemberChangeCommitted(MemberChangedEvent event) {
+        if (event.isBeforeUnknown()) {
+            memberFanout.record(evictIf((key, entry) -> true));
+            return;
+        }
+        memberFanout.record(evictIf((key, entry) -> MemberSearchConditions.matches(key.condition, event.getBefore())
+                || MemberSearchConditions.matches(key.condition, event.getAfter())));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTeamChangeCommitted(TeamChangedEvent event) {
+        // 팀 insert 는 회원이 없으므로 검색 결과에 영향 없음
+        if (event.getNameBefore() == null) {
+            return;
+        }
+        teamFanout.record(evictIf((key, entry) -> entry.teamIds.contains(event.getTeamId())
+                || teamNameIs(key.condition, event.getNameBefore())
+                || teamNameIs(key.condition, event.getNameAfter())));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBulkChangeCommitted(BulkChangedEvent event) {
+        if ("member".equals(event.getTable()) || "team".equals(event.getTable())) {
+            bulkFanout.record(evictIf((key, entry) -> true));
+        }
+    }
+
+    public synchronized void evictAll() {
+        generation++;
+        entries.clear();
+        weight = 0;
+    }
+
+    private synchronized int evictIf(BiPredicate<SearchKey, Entry> affected) {
+        generation++;
+        int evicted = 0;
+        for (Iterator<Map.Entry<SearchKey, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<SearchKey, Entry> e = it.next();
+            if (affected.test(e.getKey(), e.getValue())) {
+                weight -= e.getValue().weight;
+                it.remove();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private void store(SearchKey key, Entry entry) {
+        // 한 엔트리가 전체 한도보다 무거우면 저장하지 않음
+        if (entry.weight > maxWeight) {
+            return;
+        }
+        remove(key);
+        entries.put(key, entry);
+        weight += entry.weight;
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= eldest.next().weight;
+            eldest.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    private void remove(SearchKey key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    private synchronized double weight() {
+        return weight;
+    }
+
+    private double hitRatio() {
+        double requests = hits.count() + misses.count();
+        return requests == 0 ? 0 : hits.count() / requests;
+    }
+
+    private boolean cacheable() {
+        return enabled && (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    private static boolean teamNameIs(MemberSearchCondition condition, String teamName) {
+        return condition.getTeamName() != null && condition.getTeamName().equals(teamName);
+    }
+
+    @EqualsAndHashCode
+    @ToString
+    private static final class SearchKey {
+        private final String operation;
+        private final MemberSearchCondition condition;
+        private final long offset;
+        private final int size;
+
+        private SearchKey(String operation, MemberSearchCondition condition, long offset, int size) {
+            this.operation = operation;
+            this.condition = condition;
+            this.offset = offset;
+            this.size = size;
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final Set<Long> teamIds = new HashSet<>();
+        // 빈 결과도 키 / 값 만큼은 차지하므로 최소 1
+        private final long weight;
+        private final long expiresAt;
+
+        private Entry(Object value, List<MemberTeamDTO> content, long expiresAt) {
+            this.value = value;
+            for (MemberTeamDTO dto : content) {
+                teamIds.add(dto.getTeamId());
+            }
+            this.weight = Math.max(1, content.size());
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package study.querydsl.repository;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.event.MemberState;
+
+import static org.springframework.util.StringUtils.hasText;
+
+// MemberSearchCondition 을 캐시 키로 쓰거나, 변경된 Member 가 조건에 걸리는지 판단할 때 사용
+public final class MemberSearchConditions {
+
+    private MemberSearchConditions() {
+    }
+
+    // 검색에서 무시되는 값(빈 문자열)을 null 로 맞춘 복사본 -> equals/hashCode 가 같은 검색이면 같은 키
+    public static MemberSearchCondition normalize(MemberSearchCondition condition) {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUserName(hasText(condition.getUserName()) ? condition.getUserName() : null);
+        normalized.setTeamName(hasText(condition.getTeamName()) ? condition.getTeamName() : null);
+        normalized.setAgeGoe(condition.getAgeGoe());
+        normalized.setAgeLoe(condition.getAgeLoe());
+        return normalized;
+    }
+
+    // userNameEq / teamNameEq / userAgeGoe / userAgeLoe 와 같은 판단
+    // 팀명을 모르는 상태(초기화 안 된 프록시)면 팀 조건은 걸린다고 본다
+    public static boolean matches(MemberSearchCondition condition, MemberState state) {
+        if (state == null) {
+            return false;
+        }
+        if (hasText(condition.getUserName()) && !condition.getUserName().equals(state.getUsername())) {
+            return false;
+        }
+        if (hasText(condition.getTeamName()) && state.isTeamNameKnown()
+                && !condition.getTeamName().equals(state.getTeamName())) {
+            return false;
+        }
+        if (condition.getAgeGoe() != null && state.getAge() < condition.getAgeGoe()) {
+            return false;
+        }
+        return condition.getAgeLoe() == null || state.getAge() <= condition.getAgeLoe();
+    }
+}
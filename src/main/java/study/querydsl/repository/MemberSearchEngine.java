@@ -0,0 +1,21 @@
+package study.querydsl.repository;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+
+import java.util.List;
+
+// MemberTeamDTO 검색 실행기 (member.search.engine 으로 선택, QuerydslSqlConfig)
+// jpa : MemberSearchQueryRegistry (JPQL), sql : SqlMemberSearchEngine (QueryDSL SQL, 하이버네이트를 거치지 않음)
+// snapshot : SnapshotMemberSearchEngine (메모리의 컬럼 스냅샷, DB 를 거치지 않음)
+public interface MemberSearchEngine {
+
+    // member_id 순으로 정렬, limit 이 0 보다 작으면 전체
+    List<MemberTeamDTO> search(MemberSearchCondition condition, long offset, int limit);
+
+    // member left join team 기준 건수
+    long count(MemberSearchCondition condition);
+
+    // search 와 같은 member join team 기준 건수 (팀 없는 회원 제외, search 결과의 전체 건수)
+    long countJoined(MemberSearchCondition condition);
+}
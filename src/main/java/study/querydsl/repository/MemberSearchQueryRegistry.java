@@ -0,0 +1,231 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.dto.QMemberTeamDTO;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+// MemberSearchCondition 은 nullable 필드 4개 -> where 절 모양(shape)은 16가지 뿐
+// shape 마다 처음 한 번만 QueryDSL 로 JPQL 을 만들어 두고(값 자리는 Param), 요청마다 값만 바인딩해서 실행
+// -> 요청마다 BooleanExpression 트리 생성 / JPQL 직렬화를 하지 않음 (하이버네이트 쿼리 플랜 캐시도 shape 당 한 개)
+// shape 별 실행 횟수 / 시간은 member.search.shape 타이머 (tag : engine=jpa, shape, kind=content|count|count-joined)
+@Component
+public class MemberSearchQueryRegistry implements MemberSearchEngine {
+
+    private static final int USER_NAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+    private static final int SHAPES = 1 << 4;
+
+    private static final Param<String> userNameParam = new Param<>(String.class, "userName");
+    private static final Param<String> teamNameParam = new Param<>(String.class, "teamName");
+    private static final Param<Integer> ageGoeParam = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> ageLoeParam = new Param<>(Integer.class, "ageLoe");
+
+    private static final QMemberTeamDTO projection = new QMemberTeamDTO(
+            member.id,
+            member.username,
+            member.age,
+            team.id,
+            team.name);
+
+    private final EntityManager em;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicReferenceArray<CompiledQuery> contentQueries = new AtomicReferenceArray<>(SHAPES);
+    private final AtomicReferenceArray<CompiledQuery> countQueries = new AtomicReferenceArray<>(SHAPES);
+    private final AtomicReferenceArray<CompiledQuery> joinedCountQueries = new AtomicReferenceArray<>(SHAPES);
+
+    public MemberSearchQueryRegistry(EntityManager em, MeterRegistry meterRegistry) {
+        this.em = em;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public List<MemberTeamDTO> search(MemberSearchCondition condition, long offset, int limit) {
+        // JPA setFirstResult 는 int -> 잘라서 다른 페이지를 주지 않도록 거절
+        if (offset > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("offset 은 " + Integer.MAX_VALUE + " 이하여야 합니다. offset=" + offset);
+        }
+        int shape = shapeOf(condition);
+        CompiledQuery compiled = contentQueries.get(shape);
+        if (compiled == null) {
+            compiled = compile(shape, false, true);
+            contentQueries.set(shape, compiled);
+        }
+
+        long start = System.nanoTime();
+        Query query = compiled.bind(em, condition);
+        if (offset > 0) {
+            query.setFirstResult((int) offset);
+        }
+        if (limit >= 0) {
+            query.setMaxResults(limit);
+        }
+        List<?> rows = query.getResultList();
+        List<MemberTeamDTO> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(projection.newInstance((Object[]) row));
+        }
+        compiled.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    // searchPageComplex 의 countQuery 와 같은 결과 (member left join team)
+    @Override
+    public long count(MemberSearchCondition condition) {
+        return count(countQueries, condition, false);
+    }
+
+    // searchPageSimple 의 fetchResults 와 같은 결과 (member join team)
+    @Override
+    public long countJoined(MemberSearchCondition condition) {
+        return count(joinedCountQueries, condition, true);
+    }
+
+    private long count(AtomicReferenceArray<CompiledQuery> queries, MemberSearchCondition condition, boolean innerJoin) {
+        int shape = shapeOf(condition);
+        CompiledQuery compiled = queries.get(shape);
+        if (compiled == null) {
+            compiled = compile(shape, true, innerJoin);
+            queries.set(shape, compiled);
+        }
+
+        long start = System.nanoTime();
+        long count = ((Number) compiled.bind(em, condition).getSingleResult()).longValue();
+        compiled.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return count;
+    }
+
+    static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUserName())) {
+            shape |= USER_NAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
+
+    static String shapeName(int shape) {
+        StringJoiner name = new StringJoiner("+");
+        name.setEmptyValue("all");
+        if ((shape & USER_NAME) != 0) {
+            name.add("userName");
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            name.add("teamName");
+        }
+        if ((shape & AGE_GOE) != 0) {
+            name.add("ageGoe");
+        }
+        if ((shape & AGE_LOE) != 0) {
+            name.add("ageLoe");
+        }
+        return name.toString();
+    }
+
+    // innerJoin : content 와 같이 팀 없는 회원 제외 (count 일 때만 의미, content 는 항상 join)
+    private CompiledQuery compile(int shape, boolean count, boolean innerJoin) {
+        Predicate[] where = {
+                (shape & USER_NAME) != 0 ? member.username.eq(userNameParam) : null,
+                (shape & TEAM_NAME) != 0 ? team.name.eq(teamNameParam) : null,
+                (shape & AGE_GOE) != 0 ? member.age.goe(ageGoeParam) : null,
+                (shape & AGE_LOE) != 0 ? member.age.loe(ageLoeParam) : null
+        };
+
+        QueryMetadata metadata;
+        if (count) {
+            // 팀 조건이 없으면 left join 은 건수에 영향이 없으므로 생략
+            JPAQuery<Void> query = new JPAQuery<Void>().from(member);
+            if (innerJoin) {
+                query.join(member.team, team);
+            } else if ((shape & TEAM_NAME) != 0) {
+                query.leftJoin(member.team, team);
+            }
+            metadata = query.where(where).getMetadata();
+        } else {
+            metadata = new JPAQuery<Void>()
+                    .select(projection)
+                    .from(member)
+                    .join(member.team, team)
+                    .where(where)
+                    .orderBy(member.id.asc())
+                    .getMetadata();
+        }
+
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(metadata, count, null);
+
+        Timer timer = Timer.builder("member.search.shape")
+                .tag("engine", "jpa")
+                .tag("shape", shapeName(shape))
+                .tag("kind", !count ? "content" : innerJoin ? "count-joined" : "count")
+                .register(meterRegistry);
+        return new CompiledQuery(serializer.toString(), new HashMap<>(serializer.getConstantToAllLabels()), timer);
+    }
+
+    private static final class CompiledQuery {
+
+        private final String jpql;
+        private final Map<Object, String> constants;
+        private final Timer timer;
+
+        private CompiledQuery(String jpql, Map<Object, String> constants, Timer timer) {
+            this.jpql = jpql;
+            this.constants = constants;
+            this.timer = timer;
+        }
+
+        private Query bind(EntityManager em, MemberSearchCondition condition) {
+            Map<ParamExpression<?>, Object> params = new HashMap<>(8);
+            if (hasText(condition.getUserName())) {
+                params.put(userNameParam, condition.getUserName());
+            }
+            if (hasText(condition.getTeamName())) {
+                params.put(teamNameParam, condition.getTeamName());
+            }
+            if (condition.getAgeGoe() != null) {
+                params.put(ageGoeParam, condition.getAgeGoe());
+            }
+            if (condition.getAgeLoe() != null) {
+                params.put(ageLoeParam, condition.getAgeLoe());
+            }
+            Query query = em.createQuery(jpql);
+            JPAUtil.setConstants(query, constants, params);
+            return query;
+        }
+    }
+}
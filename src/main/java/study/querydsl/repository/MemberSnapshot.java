@@ -0,0 +1,1023 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.event.BulkChangedEvent;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.event.MemberState;
+import study.querydsl.event.TeamChangedEvent;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+import static org.springframework.util.StringUtils.hasText;
+
+// Member / Team 을 컬럼(기본형 배열)으로 들고 있는 읽기 전용 스냅샷 (SnapshotMemberSearchEngine)
+// - 회원 : long[] ids / int[] ages / int[] 이름 코드 / int[] 팀 행 번호 (행 번호는 한 번 정해지면 compact 전까지 그대로)
+// - 팀   : long[] team_id / int[] 팀명 코드
+// - 회원 이름 / 팀명은 사전(문자열 -> int 코드)으로 바꿔 두고, 조건 문자열도 코드로 바꿔서 int 비교
+// 검색은 행 번호 비트맵 색인(RowBitmap)을 AND : 회원 이름 코드별 / 팀별 / 나이 구간(age-bucket-width)별
+// -> 남은 행만 DTO 로 만들고, count 는 나이 조건이 구간 경계와 맞으면 비트맵 크기로 바로 답함
+// 커밋된 Member / Team 변경은 변경 후 상태로 덮어씀 (같은 이벤트를 다시 적용해도 결과가 같음)
+// 벌크 연산은 커밋된 뒤에 다시 만들고, 다시 만드는 동안 온 변경은 새 스냅샷에 다시 적용
+// member.snapshot.persist.enabled 면 파일로 저장해 두고 (MemberSnapshotStore) 시작할 때 DB 를 훑지 않고 다시 엶
+// - 적용한 변경마다 버전을 올리고 저널에 남김 -> 다시 열 때 스냅샷 버전 뒤의 변경만 다시 적용
+// - 저장 : save-interval 마다 / 다시 만든 뒤 / 종료할 때
+// - 파일이 깨졌거나 저널에 벌크 연산이 있으면 DB 에서 다시 만듦
+// - 꺼져 있던 동안 다른 노드에서 커밋된 변경은 저널에 없음
+//   -> 다시 연 스냅샷의 회원 수 / 가장 큰 member_id 가 DB 와 다르면 버리고 다시 만듦
+//   -> 수만 맞고 값만 바뀐 변경은 refresh-interval 의 다시 만들기로 맞춤
+@Slf4j
+@Component
+public class MemberSnapshot {
+
+    private static final String MEMBER_SCAN = "select m.member_id, m.username, m.age, m.team_id from member m order by m.member_id";
+    private static final String TEAM_SCAN = "select t.team_id, t.name from team t";
+    private static final String MEMBER_FINGERPRINT = "select count(*), max(m.member_id) from member m";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int bucketWidth;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // lock 으로 보호
+    private Columns columns;
+    private List<Change> pendingChanges;
+    // 지금까지 적용한 변경 수 (저장된 스냅샷 / 저널 레코드의 버전)
+    private long version;
+    // 변경 하나로 맞출 수 없는 변경(벌크 연산 등)이 있었음 -> 다시 만들 때까지 저장하지 않음 (저널을 비우면 안 됨)
+    private boolean stale;
+
+    // persist 가 꺼져 있으면 null
+    private MemberSnapshotStore store;
+
+    private volatile boolean ready;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    // 다시 만드는 동안 invalidate 가 있었으면 다 만들어도 ready 로 두지 않음
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "member-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MemberSnapshot(JdbcTemplate jdbcTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${member.snapshot.enabled:false}") boolean enabled,
+                          @Value("${member.snapshot.age-bucket-width:10}") int bucketWidth,
+                          @Value("${member.snapshot.refresh-interval:1h}") Duration refreshInterval,
+                          @Value("${member.snapshot.persist.enabled:false}") boolean persist,
+                          @Value("${member.snapshot.persist.directory:snapshot}") String directory,
+                          @Value("${member.snapshot.persist.save-interval:10m}") Duration saveInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.bucketWidth = bucketWidth;
+        this.columns = new Columns(bucketWidth);
+        Gauge.builder("member.snapshot.ready", this, snapshot -> snapshot.ready ? 1 : 0).register(meterRegistry);
+        Gauge.builder("member.snapshot.rows", this, MemberSnapshot::rows).register(meterRegistry);
+        Gauge.builder("member.snapshot.version", this, MemberSnapshot::version).register(meterRegistry);
+        if (enabled) {
+            long refresh = refreshInterval.toMillis();
+            executor.scheduleWithFixedDelay(this::rebuildQuietly, refresh, refresh, TimeUnit.MILLISECONDS);
+            if (persist) {
+                store = new MemberSnapshotStore(Paths.get(directory));
+                long save = saveInterval.toMillis();
+                executor.scheduleWithFixedDelay(this::saveQuietly, save, save, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // MemberSearchEngine.search 와 같은 결과 (team inner join, member_id 순)
+    public List<MemberTeamDTO> search(MemberSearchCondition condition, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return columns.search(condition, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // MemberSearchEngine.count 와 같은 결과 (team left join)
+    public long count(MemberSearchCondition condition) {
+        lock.readLock().lock();
+        try {
+            return columns.count(condition, false);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // MemberSearchEngine.countJoined 와 같은 결과 (team inner join)
+    public long countJoined(MemberSearchCondition condition) {
+        lock.readLock().lock();
+        try {
+            return columns.count(condition, true);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 파일에서 다시 여는 건 빠르므로 (배열 복사 + 저널) 빈을 만들 때 바로, 첫 요청부터 스냅샷을 씀
+    @PostConstruct
+    public void restore() {
+        if (store == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        MemberSnapshotStore.Loaded loaded = store.load(bucketWidth);
+        if (loaded == null) {
+            store.delete();
+            return;
+        }
+        long[] replayed = {loaded.version, 0};
+        boolean complete = store.replay(loaded.version, (recordVersion, change) -> {
+            replayed[0] = recordVersion;
+            replayed[1]++;
+            return change.applyTo(loaded.columns);
+        });
+        if (!complete) {
+            // 벌크 연산 / 팀명을 모르는 변경 -> 다시 만듦 (onApplicationReady)
+            log.info("member snapshot journal needs a full rebuild, ignoring saved snapshot");
+            store.delete();
+            return;
+        }
+        if (!matchesDatabase(loaded.columns)) {
+            // 저널에 없는 변경 (꺼져 있던 동안 다른 노드 / JDBC) -> 다시 만듦 (onApplicationReady)
+            store.delete();
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            columns = loaded.columns;
+            version = replayed[0];
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("member snapshot restored. members={}, version={}, replayed={}, took={}ms",
+                loaded.columns.size, replayed[0], replayed[1],
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private boolean matchesDatabase(Columns restored) {
+        long[] database = jdbcTemplate.queryForObject(MEMBER_FINGERPRINT,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        long rows = restored.size - restored.deleted;
+        long maxId = rows == 0 ? 0 : restored.maxLiveId();
+        if (database[0] == rows && database[1] == maxId) {
+            return true;
+        }
+        log.info("member snapshot differs from database, ignoring saved snapshot. snapshot=({}, {}), database=({}, {})",
+                rows, maxId, database[0], database[1]);
+        return false;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!ready) {
+            rebuildAsync();
+        }
+    }
+
+    // 롤백된 변경이 섞이지 않도록 커밋된 뒤에 반영
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMemberChangeCommitted(MemberChangedEvent event) {
+        MemberState after = event.getAfter();
+        if (after == null) {
+            apply(Change.remove(event.getMemberId()));
+        } else {
+            // 처음 보는 팀인데 팀명을 모름 (초기화 안 된 프록시) -> 팀명이 있는 팀이면 그대로, 아니면 다시 만듦
+            apply(Change.upsert(event.getMemberId(), after.getUsername(), after.getAge(), after.getTeamId(),
+                    after.isTeamNameKnown() ? after.getTeamName() : null));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTeamChangeCommitted(TeamChangedEvent event) {
+        apply(Change.renameTeam(event.getTeamId(), event.getNameAfter()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBulkChangeCommitted(BulkChangedEvent event) {
+        if ("member".equals(event.getTable()) || "team".equals(event.getTable())) {
+            // 다시 만들기 전에 죽으면 다시 열 때도 다시 만들도록 저널에 남김
+            apply(Change.bulk());
+        }
+    }
+
+    private void apply(Change change) {
+        if (!enabled) {
+            return;
+        }
+        boolean complete;
+        lock.writeLock().lock();
+        try {
+            complete = change.applyTo(columns);
+            stale |= !complete;
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+            version++;
+            journal(change);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!complete) {
+            invalidate();
+        }
+    }
+
+    // 쓰기 잠금 안에서
+    private void journal(Change change) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.append(version, change);
+        } catch (IOException e) {
+            // 저널이 빠진 스냅샷 파일은 믿을 수 없음 -> 지우고, 다음 저장부터 다시 씀
+            log.warn("member snapshot journal append failed, discarding snapshot files", e);
+            store.delete();
+        }
+    }
+
+    // 읽기 잠금 동안 변경 적용은 기다림 (저장하는 스냅샷 버전 = 저널을 비우는 시점의 버전)
+    void save() throws IOException {
+        if (store == null || !ready) {
+            return;
+        }
+        long start = System.nanoTime();
+        long saved;
+        lock.readLock().lock();
+        try {
+            if (stale) {
+                return;
+            }
+            saved = version;
+            store.save(columns, saved);
+        } finally {
+            lock.readLock().unlock();
+        }
+        log.debug("member snapshot saved. version={}, took={}ms", saved,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException | RuntimeException e) {
+            log.warn("member snapshot save failed", e);
+        }
+    }
+
+    private void invalidate() {
+        ready = false;
+        invalidations.incrementAndGet();
+        rebuildAsync();
+    }
+
+    public void rebuildAsync() {
+        if (enabled && rebuildQueued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                rebuildQueued.set(false);
+                rebuildQuietly();
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        if (store != null) {
+            saveQuietly();
+            try {
+                store.closeJournal();
+            } catch (IOException e) {
+                log.warn("member snapshot journal close failed", e);
+            }
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("member snapshot rebuild failed", e);
+        }
+    }
+
+    void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        long invalidationsBefore;
+        boolean usable;
+        try {
+            long start = System.nanoTime();
+            lock.writeLock().lock();
+            try {
+                pendingChanges = new ArrayList<>();
+                invalidationsBefore = invalidations.get();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Columns next = new Columns(bucketWidth);
+            jdbcTemplate.query(TEAM_SCAN, rs -> {
+                next.renameTeam(rs.getLong(1), rs.getString(2));
+            });
+            jdbcTemplate.query(MEMBER_SCAN, rs -> {
+                long teamId = rs.getLong(4);
+                Long nullableTeamId = rs.wasNull() ? null : teamId;
+                next.append(rs.getLong(1), rs.getString(2), rs.getInt(3), nullableTeamId);
+            });
+
+            boolean complete = true;
+            lock.writeLock().lock();
+            try {
+                // 스캔하는 동안 커밋된 변경 (스캔에 이미 보였어도 다시 적용하면 같은 상태)
+                for (Change change : pendingChanges) {
+                    complete &= change.applyTo(next);
+                }
+                stale = !complete;
+                columns = next;
+            } finally {
+                pendingChanges = null;
+                lock.writeLock().unlock();
+            }
+            // 스캔 도중 벌크 연산 / 팀명을 모르는 변경 -> 스캔 결과를 믿을 수 없으므로 한 번 더 만들 때까지 ready 아님
+            usable = complete && invalidations.get() == invalidationsBefore;
+            if (usable) {
+                ready = true;
+            }
+            log.debug("member snapshot rebuilt. members={}, teams={}, usable={}, took={}ms", next.size, next.teamCount,
+                    usable, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            if (usable) {
+                saveQuietly();
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        } finally {
+            rebuilding.set(false);
+        }
+        // 이 rebuild 도중의 rebuildAsync 는 rebuilding 이라 그냥 지나갔으므로 끝난 뒤 다시 요청
+        if (!usable || invalidations.get() != invalidationsBefore) {
+            rebuildAsync();
+        }
+    }
+
+    private double version() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double rows() {
+        lock.readLock().lock();
+        try {
+            return columns.size - columns.deleted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 문자열 <-> int 코드 (코드는 한 번 정해지면 다시 만들 때까지 바뀌지 않음)
+    static final class Dictionary {
+
+        static final int NOT_FOUND = -1;
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[16];
+        private int size;
+
+        int code(String value) {
+            Integer code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size] = value;
+            codes.put(value, size);
+            return size++;
+        }
+
+        int find(String value) {
+            Integer code = codes.get(value);
+            return code == null ? NOT_FOUND : code;
+        }
+
+        String value(int code) {
+            return code == NOT_FOUND ? null : values[code];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    // 커밋된 변경 한 건 (저널에 남기고 다시 적용할 수 있도록 값으로 들고 있음)
+    // 변경 후 상태로 덮어쓰므로 같은 변경을 두 번 적용해도 결과가 같음
+    static final class Change {
+
+        static final byte UPSERT = 'U';
+        static final byte REMOVE = 'D';
+        static final byte RENAME_TEAM = 'T';
+        static final byte BULK = 'B';
+
+        final byte type;
+        // 회원 / 팀 id
+        final long id;
+        final String username;
+        final int age;
+        final Long teamId;
+        // 모르면 null (upsert), 삭제된 팀이면 null (renameTeam)
+        final String teamName;
+
+        private Change(byte type, long id, String username, int age, Long teamId, String teamName) {
+            this.type = type;
+            this.id = id;
+            this.username = username;
+            this.age = age;
+            this.teamId = teamId;
+            this.teamName = teamName;
+        }
+
+        static Change upsert(long memberId, String username, int age, Long teamId, String teamName) {
+            return new Change(UPSERT, memberId, username, age, teamId, teamName);
+        }
+
+        static Change remove(long memberId) {
+            return new Change(REMOVE, memberId, null, 0, null, null);
+        }
+
+        static Change renameTeam(long teamId, String name) {
+            return new Change(RENAME_TEAM, teamId, null, 0, null, name);
+        }
+
+        static Change bulk() {
+            return new Change(BULK, 0, null, 0, null, null);
+        }
+
+        // false 면 변경 하나로는 맞출 수 없음 -> 다시 만들어야 함
+        boolean applyTo(Columns columns) {
+            switch (type) {
+                case UPSERT:
+                    return columns.upsert(id, username, age, teamId, teamName);
+                case REMOVE:
+                    columns.remove(id);
+                    return true;
+                case RENAME_TEAM:
+                    columns.renameTeam(id, teamName);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    // 스냅샷 한 벌 (MemberSnapshot 의 lock 안에서만 사용)
+    static final class Columns {
+
+        static final int NO_TEAM = -1;
+        // 삭제된 행이 이보다 많고 전체의 1/4 을 넘거나, 제자리가 아닌 행이 이보다 많으면 member_id 순으로 다시 채움
+        private static final int COMPACT_THRESHOLD = 1024;
+
+        private final int bucketWidth;
+
+        // 회원 : 새 행은 항상 끝에 붙임 (행 번호가 바뀌지 않으므로 색인은 그 행만 고치면 됨), 삭제는 live[i] = false 로 표시
+        // 끝에 붙인 행 중 그때까지의 가장 큰 id 보다 큰 행은 member_id 순서 그대로
+        // 작은 행(다른 노드가 먼저 할당받은 블록 등)은 outOfOrder 에 따로 id 순으로 들고 있다가 검색할 때 끼워 넣음
+        long[] ids = new long[16];
+        int[] ages = new int[16];
+        int[] userCodes = new int[16];
+        int[] teamRows = new int[16];
+        boolean[] live = new boolean[16];
+        int size;
+        int deleted;
+        // 제자리(member_id 순)에 있는 행 중 가장 큰 id
+        private long maxOrderedId = Long.MIN_VALUE;
+        // 제자리가 아닌 행 : member_id -> 행 번호 (삭제된 행 포함), 같은 행들의 비트맵
+        private final TreeMap<Long, Integer> outOfOrder = new TreeMap<>();
+        private RowBitmap outOfOrderRows = new RowBitmap();
+
+        // 팀 : 회원의 teamRows 가 가리키는 행
+        long[] teamIds = new long[16];
+        int[] teamNameCodes = new int[16];
+        int teamCount;
+        private final Map<Long, Integer> teamRowById = new HashMap<>();
+
+        final Dictionary usernames = new Dictionary();
+        final Dictionary teamNames = new Dictionary();
+
+        // 색인 : 값 -> 살아있는 회원 행 번호 집합
+        // 행 번호가 바뀌면 (compact) 전부 다시 만듦
+        private RowBitmap liveRows = new RowBitmap();
+        private RowBitmap withTeam = new RowBitmap();
+        private final List<RowBitmap> byUsername = new ArrayList<>();
+        private final List<RowBitmap> byTeam = new ArrayList<>();
+        private final TreeMap<Integer, RowBitmap> byAgeBucket = new TreeMap<>();
+
+        Columns(int bucketWidth) {
+            this.bucketWidth = bucketWidth;
+        }
+
+        // 저장해 둔 스냅샷으로 채움 (MemberSnapshotStore), 사전은 코드 순서대로 넣으면 코드가 그대로
+        void restore(long[] ids, int[] ages, int[] userCodes, int[] teamRows,
+                     long[] teamIds, int[] teamNameCodes, String[] usernames, String[] teamNames) {
+            for (String username : usernames) {
+                this.usernames.code(username);
+            }
+            for (String teamName : teamNames) {
+                this.teamNames.code(teamName);
+            }
+            this.ids = ids;
+            this.ages = ages;
+            this.userCodes = userCodes;
+            this.teamRows = teamRows;
+            this.live = new boolean[ids.length];
+            Arrays.fill(live, true);
+            this.size = ids.length;
+            this.deleted = 0;
+            this.maxOrderedId = size == 0 ? Long.MIN_VALUE : ids[size - 1];
+            this.teamIds = teamIds;
+            this.teamNameCodes = teamNameCodes;
+            this.teamCount = teamIds.length;
+            for (int t = 0; t < teamCount; t++) {
+                teamRowById.put(teamIds[t], t);
+            }
+            reindex();
+        }
+
+        // MemberSnapshotStore 형식 : 살아있는 회원 행만 member_id 순으로 컬럼 순서대로, 팀 행 -> 회원 행 수
+        int writeColumns(DataOutputStream out) throws IOException {
+            int[] rows = liveRowsInIdOrder();
+            for (int row : rows) {
+                out.writeLong(ids[row]);
+            }
+            for (int row : rows) {
+                out.writeInt(ages[row]);
+            }
+            for (int row : rows) {
+                out.writeInt(userCodes[row]);
+            }
+            for (int row : rows) {
+                out.writeInt(teamRows[row]);
+            }
+            for (int t = 0; t < teamCount; t++) {
+                out.writeLong(teamIds[t]);
+            }
+            for (int t = 0; t < teamCount; t++) {
+                out.writeInt(teamNameCodes[t]);
+            }
+            return rows.length;
+        }
+
+        // member_id 순으로 들어온다고 가정 (다시 만들 때)
+        void append(long id, String username, int age, Long teamId) {
+            ensureCapacity(size + 1);
+            set(size, id, username, age, teamId == null ? NO_TEAM : teamRow(teamId));
+            maxOrderedId = id;
+            index(size++);
+        }
+
+        // 팀명을 모르는 새 팀이면 false (팀명 조건 / 결과의 팀명이 틀릴 수 있음)
+        boolean upsert(long id, String username, int age, Long teamId, String teamName) {
+            int teamRow = NO_TEAM;
+            boolean complete = true;
+            if (teamId != null) {
+                teamRow = teamRow(teamId);
+                if (teamName != null) {
+                    teamNameCodes[teamRow] = teamNames.code(teamName);
+                } else {
+                    complete = teamNameCodes[teamRow] != Dictionary.NOT_FOUND;
+                }
+            }
+            int row = row(id);
+            if (row >= 0) {
+                if (live[row]) {
+                    unindex(row);
+                } else {
+                    deleted--;
+                }
+                set(row, id, username, age, teamRow);
+                index(row);
+                return complete;
+            }
+            // 보통은 가장 큰 id (시퀀스), 다른 노드가 먼저 할당받은 블록이면 제자리가 아닌 행으로
+            row = size;
+            ensureCapacity(size + 1);
+            set(row, id, username, age, teamRow);
+            if (id > maxOrderedId) {
+                maxOrderedId = id;
+            } else {
+                outOfOrder.put(id, row);
+                outOfOrderRows.add(row);
+            }
+            index(size++);
+            if (outOfOrder.size() > COMPACT_THRESHOLD) {
+                compact();
+            }
+            return complete;
+        }
+
+        void remove(long id) {
+            int row = row(id);
+            if (row < 0 || !live[row]) {
+                return;
+            }
+            unindex(row);
+            live[row] = false;
+            deleted++;
+            if (deleted > COMPACT_THRESHOLD && deleted * 4 > size) {
+                compact();
+            }
+        }
+
+        // 팀 insert / 이름 변경 / 삭제(name == null)
+        void renameTeam(long teamId, String name) {
+            teamNameCodes[teamRow(teamId)] = name == null ? Dictionary.NOT_FOUND : teamNames.code(name);
+        }
+
+        List<MemberTeamDTO> search(MemberSearchCondition condition, long offset, int limit) {
+            Filter filter = filter(condition);
+            if (filter == null || limit == 0) {
+                return Collections.emptyList();
+            }
+            RowBitmap rows = candidates(filter, true);
+            List<MemberTeamDTO> result = new ArrayList<>(limit > 0 ? Math.min(limit, 1024) : 16);
+            long[] skip = {offset};
+            forEachInIdOrder(rows, row -> {
+                if (!filter.ageMatches(ages[row])) {
+                    return true;
+                }
+                if (skip[0] > 0) {
+                    skip[0]--;
+                    return true;
+                }
+                int teamRow = teamRows[row];
+                result.add(new MemberTeamDTO(ids[row], usernames.value(userCodes[row]), ages[row],
+                        teamIds[teamRow], teamNames.value(teamNameCodes[teamRow])));
+                return result.size() != limit;
+            });
+            return result;
+        }
+
+        long count(MemberSearchCondition condition, boolean innerJoin) {
+            Filter filter = filter(condition);
+            if (filter == null) {
+                return 0;
+            }
+            RowBitmap rows = candidates(filter, innerJoin);
+            // 나이 조건이 구간 경계와 맞으면 집합 크기가 곧 건수
+            if (filter.ageAligned) {
+                return rows.cardinality();
+            }
+            long[] count = {0};
+            rows.forEach(row -> {
+                if (filter.ageMatches(ages[row])) {
+                    count[0]++;
+                }
+                return true;
+            });
+            return count[0];
+        }
+
+        // 조건마다 색인 비트맵을 AND, 나이는 걸치는 구간들을 OR (구간 경계에 걸친 행은 나이를 다시 확인)
+        // innerJoin : 검색(content) / countJoined 는 팀 없는 회원 제외, count 는 팀 조건이 없으면 포함 (left join)
+        private RowBitmap candidates(Filter filter, boolean innerJoin) {
+            List<RowBitmap> sets = new ArrayList<>(4);
+            if (filter.byUser) {
+                sets.add(filter.userCode < byUsername.size() ? byUsername.get(filter.userCode) : new RowBitmap());
+            }
+            if (filter.byTeam) {
+                // 팀명은 유일하지 않을 수 있음
+                RowBitmap teams = new RowBitmap();
+                for (int t = 0; t < teamCount; t++) {
+                    if (teamNameCodes[t] == filter.teamCode && t < byTeam.size()) {
+                        teams = teams.or(byTeam.get(t));
+                    }
+                }
+                sets.add(teams);
+            } else if (innerJoin) {
+                sets.add(withTeam);
+            }
+            if (filter.byAge) {
+                RowBitmap ageRows = new RowBitmap();
+                int from = bucket(filter.ageGoe);
+                int to = bucket(filter.ageLoe);
+                // ageGoe > ageLoe 면 빈 집합 (subMap 은 from > to 를 받지 않음)
+                if (from <= to) {
+                    for (RowBitmap bucket : byAgeBucket.subMap(from, true, to, true).values()) {
+                        ageRows = ageRows.or(bucket);
+                    }
+                }
+                sets.add(ageRows);
+            }
+            if (sets.isEmpty()) {
+                return liveRows;
+            }
+            // 작은 집합부터 AND
+            sets.sort(Comparator.comparingLong(RowBitmap::cardinality));
+            RowBitmap result = sets.get(0);
+            for (int i = 1; i < sets.size() && !result.isEmpty(); i++) {
+                result = result.and(sets.get(i));
+            }
+            return result;
+        }
+
+        // 조건 문자열을 코드로 바꿈, 사전에 없는 값이면 결과가 없으므로 null
+        private Filter filter(MemberSearchCondition condition) {
+            int userCode = Dictionary.NOT_FOUND;
+            if (hasText(condition.getUserName())) {
+                userCode = usernames.find(condition.getUserName());
+                if (userCode == Dictionary.NOT_FOUND) {
+                    return null;
+                }
+            }
+            int teamCode = Dictionary.NOT_FOUND;
+            if (hasText(condition.getTeamName())) {
+                teamCode = teamNames.find(condition.getTeamName());
+                if (teamCode == Dictionary.NOT_FOUND) {
+                    return null;
+                }
+            }
+            int ageGoe = condition.getAgeGoe() == null ? Integer.MIN_VALUE : condition.getAgeGoe();
+            int ageLoe = condition.getAgeLoe() == null ? Integer.MAX_VALUE : condition.getAgeLoe();
+            boolean aligned = (condition.getAgeGoe() == null || Math.floorMod(ageGoe, bucketWidth) == 0)
+                    && (condition.getAgeLoe() == null || Math.floorMod(ageLoe + 1, bucketWidth) == 0);
+            return new Filter(hasText(condition.getUserName()), userCode, hasText(condition.getTeamName()), teamCode,
+                    condition.getAgeGoe() != null || condition.getAgeLoe() != null, ageGoe, ageLoe, aligned);
+        }
+
+        // 행 번호 순으로 훑으면서 제자리가 아닌 행을 member_id 순서에 맞게 끼워 넣음
+        private void forEachInIdOrder(RowBitmap rows, IntPredicate visitor) {
+            if (outOfOrder.isEmpty()) {
+                rows.forEach(visitor);
+                return;
+            }
+            List<Integer> others = new ArrayList<>();
+            for (int row : outOfOrder.values()) {
+                if (rows.contains(row)) {
+                    others.add(row);
+                }
+            }
+            int[] next = {0};
+            boolean[] stopped = {false};
+            rows.forEach(row -> {
+                if (outOfOrderRows.contains(row)) {
+                    return true;
+                }
+                while (next[0] < others.size() && ids[others.get(next[0])] < ids[row]) {
+                    if (!visitor.test(others.get(next[0]++))) {
+                        stopped[0] = true;
+                        return false;
+                    }
+                }
+                stopped[0] = !visitor.test(row);
+                return !stopped[0];
+            });
+            while (!stopped[0] && next[0] < others.size()) {
+                stopped[0] = !visitor.test(others.get(next[0]++));
+            }
+        }
+
+        private int[] liveRowsInIdOrder() {
+            int[] rows = new int[size - deleted];
+            int[] n = {0};
+            forEachInIdOrder(liveRows, row -> {
+                rows[n[0]++] = row;
+                return true;
+            });
+            return rows;
+        }
+
+        // 살아있는 행 중 가장 큰 member_id (다시 열 때 DB 와 비교)
+        long maxLiveId() {
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                if (live[i] && ids[i] > max) {
+                    max = ids[i];
+                }
+            }
+            return max;
+        }
+
+        // member_id 의 행 번호, 없으면 -1 (삭제된 행이면 그 행)
+        // 제자리 행끼리는 member_id 오름차순 -> 이분 탐색하면서 제자리가 아닌 행은 건너뜀
+        private int row(long id) {
+            Integer other = outOfOrder.get(id);
+            if (other != null) {
+                return other;
+            }
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int probe = mid;
+                while (probe >= low && outOfOrderRows.contains(probe)) {
+                    probe--;
+                }
+                if (probe < low) {
+                    low = mid + 1;
+                } else if (ids[probe] < id) {
+                    low = mid + 1;
+                } else if (ids[probe] > id) {
+                    high = probe - 1;
+                } else {
+                    return probe;
+                }
+            }
+            return -1;
+        }
+
+        private void index(int row) {
+            liveRows.add(row);
+            bitmap(byUsername, userCodes[row]).add(row);
+            if (teamRows[row] != NO_TEAM) {
+                withTeam.add(row);
+                bitmap(byTeam, teamRows[row]).add(row);
+            }
+            byAgeBucket.computeIfAbsent(bucket(ages[row]), b -> new RowBitmap()).add(row);
+        }
+
+        private void unindex(int row) {
+            liveRows.remove(row);
+            byUsername.get(userCodes[row]).remove(row);
+            if (teamRows[row] != NO_TEAM) {
+                withTeam.remove(row);
+                byTeam.get(teamRows[row]).remove(row);
+            }
+            RowBitmap bucket = byAgeBucket.get(bucket(ages[row]));
+            bucket.remove(row);
+            if (bucket.isEmpty()) {
+                byAgeBucket.remove(bucket(ages[row]));
+            }
+        }
+
+        private void reindex() {
+            liveRows = new RowBitmap();
+            withTeam = new RowBitmap();
+            byUsername.clear();
+            byTeam.clear();
+            byAgeBucket.clear();
+            for (int i = 0; i < size; i++) {
+                if (live[i]) {
+                    index(i);
+                }
+            }
+        }
+
+        private static RowBitmap bitmap(List<RowBitmap> bitmaps, int code) {
+            while (bitmaps.size() <= code) {
+                bitmaps.add(new RowBitmap());
+            }
+            return bitmaps.get(code);
+        }
+
+        private int bucket(int age) {
+            return Math.floorDiv(age, bucketWidth);
+        }
+
+        private int teamRow(long teamId) {
+            Integer row = teamRowById.get(teamId);
+            if (row != null) {
+                return row;
+            }
+            if (teamCount == teamIds.length) {
+                teamIds = Arrays.copyOf(teamIds, Math.max(16, teamCount * 2));
+                teamNameCodes = Arrays.copyOf(teamNameCodes, Math.max(16, teamCount * 2));
+            }
+            teamIds[teamCount] = teamId;
+            teamNameCodes[teamCount] = Dictionary.NOT_FOUND;
+            teamRowById.put(teamId, teamCount);
+            return teamCount++;
+        }
+
+        private void set(int row, long id, String username, int age, int teamRow) {
+            ids[row] = id;
+            ages[row] = age;
+            userCodes[row] = usernames.code(username);
+            teamRows[row] = teamRow;
+            live[row] = true;
+        }
+
+        // 살아있는 행만 member_id 순으로 다시 채움 (행 번호가 바뀌므로 색인도 다시 만듦)
+        private void compact() {
+            int[] rows = liveRowsInIdOrder();
+            int length = Math.max(16, ids.length);
+            long[] newIds = new long[length];
+            int[] newAges = new int[length];
+            int[] newUserCodes = new int[length];
+            int[] newTeamRows = new int[length];
+            for (int i = 0; i < rows.length; i++) {
+                newIds[i] = ids[rows[i]];
+                newAges[i] = ages[rows[i]];
+                newUserCodes[i] = userCodes[rows[i]];
+                newTeamRows[i] = teamRows[rows[i]];
+            }
+            ids = newIds;
+            ages = newAges;
+            userCodes = newUserCodes;
+            teamRows = newTeamRows;
+            live = new boolean[length];
+            Arrays.fill(live, 0, rows.length, true);
+            size = rows.length;
+            deleted = 0;
+            maxOrderedId = size == 0 ? Long.MIN_VALUE : ids[size - 1];
+            outOfOrder.clear();
+            outOfOrderRows = new RowBitmap();
+            reindex();
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int length = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, length);
+            ages = Arrays.copyOf(ages, length);
+            userCodes = Arrays.copyOf(userCodes, length);
+            teamRows = Arrays.copyOf(teamRows, length);
+            live = Arrays.copyOf(live, length);
+        }
+    }
+
+    // 코드로 바꾼 검색 조건 한 건
+    private static final class Filter {
+        private final boolean byUser;
+        private final int userCode;
+        private final boolean byTeam;
+        private final int teamCode;
+        private final boolean byAge;
+        private final int ageGoe;
+        private final int ageLoe;
+        // 나이 조건이 구간 경계와 맞음 -> 구간 색인만으로 정확함
+        private final boolean ageAligned;
+
+        private Filter(boolean byUser, int userCode, boolean byTeam, int teamCode,
+                       boolean byAge, int ageGoe, int ageLoe, boolean ageAligned) {
+            this.byUser = byUser;
+            this.userCode = userCode;
+            this.byTeam = byTeam;
+            this.teamCode = teamCode;
+            this.byAge = byAge;
+            this.ageGoe = ageGoe;
+            this.ageLoe = ageLoe;
+            this.ageAligned = ageAligned;
+        }
+
+        private boolean ageMatches(int age) {
+            return ageAligned || (age >= ageGoe && age <= ageLoe);
+        }
+    }
+}
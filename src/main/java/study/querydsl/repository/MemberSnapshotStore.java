@@ -0,0 +1,353 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.repository.MemberSnapshot.Change;
+import study.querydsl.repository.MemberSnapshot.Columns;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// MemberSnapshot 을 파일로 저장 / 다시 열기 (member.snapshot.persist)
+// - member.snapshot : 헤더(버전, 행 수, payload 길이, CRC32) + 컬럼 배열 + 사전 문자열
+//   다시 열 때는 파일을 mmap 해서 CRC 를 확인하고, 배열은 LongBuffer / IntBuffer 뷰로 한 번에 복사 (행마다 파싱하지 않음)
+// - member.journal : 스냅샷 이후 적용한 변경 (버전, Change), 레코드마다 길이 + CRC32
+//   프로세스가 쓰다가 죽어서 잘린 마지막 레코드는 버리고 거기까지만 다시 적용
+// 저장 순서 : 임시 파일에 쓰고 fsync -> rename -> 저널 비움 (어느 단계에서 죽어도 스냅샷 + 저널로 같은 상태)
+@Slf4j
+final class MemberSnapshotStore {
+
+    // "MSNP"
+    private static final int MAGIC = 0x4D534E50;
+    private static final int FORMAT = 1;
+    // magic, format, version, 회원 행, 팀 행, 회원 이름 수, 팀명 수, payload 길이, payload CRC
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4 + 4 + 4 + 8 + 8;
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private FileChannel journal;
+
+    MemberSnapshotStore(Path directory) {
+        this.snapshotFile = directory.resolve("member.snapshot");
+        this.journalFile = directory.resolve("member.journal");
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 저장된 스냅샷 { columns, version }, 없거나 깨졌으면 null
+    Loaded load(int bucketWidth) {
+        if (!Files.exists(snapshotFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                log.warn("member snapshot file has unknown format, ignoring. file={}", snapshotFile);
+                return null;
+            }
+            long version = buffer.getLong();
+            int memberRows = buffer.getInt();
+            int teamRows = buffer.getInt();
+            int usernameCount = buffer.getInt();
+            int teamNameCount = buffer.getInt();
+            long payloadLength = buffer.getLong();
+            long payloadCrc = buffer.getLong();
+            if (payloadLength != buffer.remaining()) {
+                log.warn("member snapshot file is truncated, ignoring. file={}", snapshotFile);
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if (crc.getValue() != payloadCrc) {
+                log.warn("member snapshot checksum mismatch, ignoring. file={}", snapshotFile);
+                return null;
+            }
+
+            long[] ids = new long[memberRows];
+            int[] ages = new int[memberRows];
+            int[] userCodes = new int[memberRows];
+            int[] memberTeamRows = new int[memberRows];
+            long[] teamIds = new long[teamRows];
+            int[] teamNameCodes = new int[teamRows];
+            buffer.asLongBuffer().get(ids);
+            skip(buffer, 8L * memberRows);
+            buffer.asIntBuffer().get(ages);
+            skip(buffer, 4L * memberRows);
+            buffer.asIntBuffer().get(userCodes);
+            skip(buffer, 4L * memberRows);
+            buffer.asIntBuffer().get(memberTeamRows);
+            skip(buffer, 4L * memberRows);
+            buffer.asLongBuffer().get(teamIds);
+            skip(buffer, 8L * teamRows);
+            buffer.asIntBuffer().get(teamNameCodes);
+            skip(buffer, 4L * teamRows);
+            String[] usernames = strings(buffer, usernameCount);
+            String[] teamNames = strings(buffer, teamNameCount);
+
+            Columns columns = new Columns(bucketWidth);
+            columns.restore(ids, ages, userCodes, memberTeamRows, teamIds, teamNameCodes, usernames, teamNames);
+            return new Loaded(columns, version);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            // CRC 가 맞는데도 읽을 수 없으면 다른 형식으로 쓴 파일
+            log.warn("member snapshot file could not be read, ignoring. file={}", snapshotFile, e);
+            return null;
+        }
+    }
+
+    // version 보다 뒤의 변경을 순서대로 넘김, apply 가 false 면 멈추고 false
+    // 잘린 마지막 레코드는 잘라냄 (뒤에 붙는 레코드까지 못 읽게 되지 않도록)
+    boolean replay(long version, JournalVisitor apply) {
+        if (!Files.exists(journalFile)) {
+            return true;
+        }
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile)))) {
+            long fileSize = Files.size(journalFile);
+            while (valid < fileSize) {
+                int length = in.readInt();
+                long crc = in.readLong();
+                if (length < 0 || valid + 12 + length > fileSize) {
+                    break;
+                }
+                byte[] body = new byte[length];
+                in.readFully(body);
+                CRC32 actual = new CRC32();
+                actual.update(body);
+                if (actual.getValue() != crc) {
+                    break;
+                }
+                valid += 12 + length;
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(body));
+                long recordVersion = record.readLong();
+                if (recordVersion > version && !apply.accept(recordVersion, readChange(record))) {
+                    return false;
+                }
+            }
+        } catch (EOFException e) {
+            // 길이 / CRC 를 쓰다가 죽음
+        } catch (IOException e) {
+            log.warn("member snapshot journal could not be read. file={}", journalFile, e);
+            return false;
+        }
+        try {
+            if (valid < Files.size(journalFile)) {
+                log.warn("member snapshot journal has a torn record, replayed up to it. file={}, validBytes={}",
+                        journalFile, valid);
+                journal().truncate(valid);
+            }
+            return true;
+        } catch (IOException e) {
+            log.warn("member snapshot journal could not be truncated. file={}", journalFile, e);
+            return false;
+        }
+    }
+
+    // MemberSnapshot 의 쓰기 잠금 안에서 호출 (버전 순서 = 파일 순서)
+    void append(long version, Change change) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream body = new DataOutputStream(bytes);
+        body.writeLong(version);
+        writeChange(body, change);
+        byte[] record = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record);
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 8 + record.length);
+        buffer.putInt(record.length).putLong(crc.getValue()).put(record).flip();
+        FileChannel channel = journal();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // MemberSnapshot 의 읽기 잠금 안에서 호출 (저장하는 동안 저널에 새 변경이 붙지 않음)
+    void save(Columns columns, long version) throws IOException {
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            CountingOutputStream counting = new CountingOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(counting, 1 << 16));
+            int memberRows = columns.writeColumns(out);
+            int usernameCount = writeStrings(out, columns.usernames);
+            int teamNameCount = writeStrings(out, columns.teamNames);
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(FORMAT).putLong(version)
+                    .putInt(memberRows).putInt(columns.teamCount)
+                    .putInt(usernameCount).putInt(teamNameCount)
+                    .putLong(counting.count).putLong(crc.getValue())
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // 스냅샷에 다 들어간 변경
+        journal().truncate(0);
+    }
+
+    // 파일을 믿을 수 없게 됐을 때 (저널 쓰기 실패 / 스냅샷이 깨짐) -> 다음에는 DB 에서 다시 만듦
+    void delete() {
+        try {
+            closeJournal();
+            Files.deleteIfExists(snapshotFile);
+            Files.deleteIfExists(journalFile);
+        } catch (IOException e) {
+            log.warn("member snapshot files could not be deleted. directory={}", snapshotFile.getParent(), e);
+        }
+    }
+
+    void closeJournal() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    private FileChannel journal() throws IOException {
+        if (journal == null) {
+            journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return journal;
+    }
+
+    private static void writeChange(DataOutputStream out, Change change) throws IOException {
+        out.writeByte(change.type);
+        switch (change.type) {
+            case Change.UPSERT:
+                out.writeLong(change.id);
+                out.writeUTF(change.username);
+                out.writeInt(change.age);
+                writeNullableLong(out, change.teamId);
+                writeNullableString(out, change.teamName);
+                break;
+            case Change.REMOVE:
+                out.writeLong(change.id);
+                break;
+            case Change.RENAME_TEAM:
+                out.writeLong(change.id);
+                writeNullableString(out, change.teamName);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static Change readChange(DataInputStream in) throws IOException {
+        switch (in.readByte()) {
+            case Change.UPSERT:
+                long id = in.readLong();
+                String username = in.readUTF();
+                int age = in.readInt();
+                Long teamId = in.readBoolean() ? in.readLong() : null;
+                String teamName = in.readBoolean() ? in.readUTF() : null;
+                return Change.upsert(id, username, age, teamId, teamName);
+            case Change.REMOVE:
+                return Change.remove(in.readLong());
+            case Change.RENAME_TEAM:
+                long team = in.readLong();
+                return Change.renameTeam(team, in.readBoolean() ? in.readUTF() : null);
+            default:
+                return Change.bulk();
+        }
+    }
+
+    private static void writeNullableLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    // 코드 순서대로 (다시 열 때 같은 순서로 넣으면 같은 코드)
+    private static int writeStrings(DataOutputStream out, MemberSnapshot.Dictionary dictionary) throws IOException {
+        for (int code = 0; code < dictionary.size(); code++) {
+            byte[] bytes = dictionary.value(code).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        return dictionary.size();
+    }
+
+    private static String[] strings(ByteBuffer buffer, int count) {
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static void skip(ByteBuffer buffer, long bytes) {
+        buffer.position(Math.toIntExact(buffer.position() + bytes));
+    }
+
+    interface JournalVisitor {
+        boolean accept(long version, Change change);
+    }
+
+    static final class Loaded {
+        final Columns columns;
+        final long version;
+
+        private Loaded(Columns columns, long version) {
+            this.columns = columns;
+            this.version = version;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.metrics.QueryContext;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// 페이지 content 쿼리와 count 쿼리를 동시에 실행
+// - count 는 별도 스레드에서 새 read-only 트랜잭션(= 풀의 다른 커넥션, 복제 DB 라우팅)으로 먼저 시작하고
+//   content 는 호출 스레드에서 그대로 실행 -> 응답 시간이 두 쿼리의 합이 아니라 긴 쪽 정도
+// - PageableExecutionUtils 가 count 를 쓰지 않으면(마지막 페이지 등) 실행 중인 count 는 취소
+// - 쓰기 트랜잭션 안에서는 다른 커넥션이 아직 커밋 안 된 변경을 못 보므로 기존처럼 순서대로 실행
+// - 스레드 풀은 크기와 대기열이 정해져 있고, 꽉 차면 호출 스레드에서 순서대로 실행
+@Slf4j
+@Component
+public class PageCountExecutor {
+
+    private final boolean enabled;
+    private final long timeoutNanos;
+    private final TransactionTemplate countTransaction;
+    private final ThreadPoolExecutor executor;
+
+    private final Counter used;
+    private final Counter cancelled;
+    private final Counter timeouts;
+    private final Counter rejected;
+    private final Counter inline;
+
+    public PageCountExecutor(PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${member.page.parallel-count.enabled:false}") boolean enabled,
+                             @Value("${member.page.parallel-count.pool-size:4}") int poolSize,
+                             @Value("${member.page.parallel-count.queue-capacity:16}") int queueCapacity,
+                             @Value("${member.page.parallel-count.timeout:3s}") Duration timeout) {
+        this.enabled = enabled;
+        this.timeoutNanos = timeout.toNanos();
+
+        this.countTransaction = new TransactionTemplate(transactionManager);
+        countTransaction.setReadOnly(true);
+        countTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // 트랜잭션 타임아웃 -> 하이버네이트가 statement 타임아웃으로 걸어서 DB 쪽에서도 끊김
+        countTransaction.setTimeout((int) Math.max(1, (timeout.toMillis() + 999) / 1000));
+
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "member-page-count-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+
+        this.used = counts(meterRegistry, "used");
+        this.cancelled = counts(meterRegistry, "cancelled");
+        this.timeouts = counts(meterRegistry, "timeout");
+        this.rejected = counts(meterRegistry, "rejected");
+        this.inline = counts(meterRegistry, "inline");
+        meterRegistry.gauge("member.page.count.parallel.active", executor, ThreadPoolExecutor::getActiveCount);
+        meterRegistry.gauge("member.page.count.parallel.queued", executor, e -> e.getQueue().size());
+    }
+
+    private static Counter counts(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("member.page.count.parallel")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public <T> Page<T> getPage(Pageable pageable, Supplier<List<T>> content, LongSupplier count) {
+        if (!enabled) {
+            return PageableExecutionUtils.getPage(content.get(), pageable, count);
+        }
+        if (!canRunApart()) {
+            inline.increment();
+            return PageableExecutionUtils.getPage(content.get(), pageable, count);
+        }
+
+        Future<Long> total;
+        try {
+            total = executor.submit(QueryContext.propagate(() -> countTransaction.execute(status -> count.getAsLong())));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return PageableExecutionUtils.getPage(content.get(), pageable, count);
+        }
+
+        AtomicBoolean needed = new AtomicBoolean();
+        try {
+            List<T> list = content.get();
+            return PageableExecutionUtils.getPage(list, pageable, () -> {
+                needed.set(true);
+                return await(total);
+            });
+        } finally {
+            // content 가 실패했거나 count 가 필요 없으면 실행 중/대기 중인 count 를 취소
+            if (!needed.get() && total.cancel(true)) {
+                cancelled.increment();
+            }
+        }
+    }
+
+    private long await(Future<Long> total) {
+        try {
+            long count = total.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            used.increment();
+            return count;
+        } catch (TimeoutException e) {
+            total.cancel(true);
+            timeouts.increment();
+            throw new QueryTimeoutException("count 쿼리가 " + Duration.ofNanos(timeoutNanos) + " 안에 끝나지 않았습니다.", e);
+        } catch (InterruptedException e) {
+            total.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("count 쿼리를 기다리는 중 인터럽트", e);
+        } catch (CancellationException e) {
+            throw new QueryTimeoutException("count 쿼리가 취소되었습니다.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static boolean canRunApart() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
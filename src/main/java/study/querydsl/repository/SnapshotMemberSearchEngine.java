@@ -0,0 +1,95 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// MemberSnapshot 으로 DB 를 거치지 않고 검색 (member.search.engine=snapshot, member.snapshot.enabled=true)
+// 스냅샷은 커밋된 변경만 보므로 아래 경우는 MemberSearchQueryRegistry(JPQL) 로 실행
+// - 스냅샷이 아직 준비 안 됨 (기동 직후, 벌크 연산 뒤 다시 만드는 중)
+// - 쓰기 트랜잭션 안 (자기 변경이 결과에 보여야 함)
+@Component
+public class SnapshotMemberSearchEngine implements MemberSearchEngine {
+
+    private final MemberSnapshot snapshot;
+    private final MemberSearchQueryRegistry fallback;
+    private final MeterRegistry meterRegistry;
+    private final Counter fallbacks;
+
+    private final AtomicReferenceArray<Timer> contentTimers = new AtomicReferenceArray<>(16);
+    private final AtomicReferenceArray<Timer> countTimers = new AtomicReferenceArray<>(16);
+    private final AtomicReferenceArray<Timer> joinedCountTimers = new AtomicReferenceArray<>(16);
+
+    public SnapshotMemberSearchEngine(MemberSnapshot snapshot, MemberSearchQueryRegistry fallback, MeterRegistry meterRegistry) {
+        this.snapshot = snapshot;
+        this.fallback = fallback;
+        this.meterRegistry = meterRegistry;
+        this.fallbacks = meterRegistry.counter("member.snapshot.fallback");
+    }
+
+    @Override
+    public List<MemberTeamDTO> search(MemberSearchCondition condition, long offset, int limit) {
+        if (!usable()) {
+            fallbacks.increment();
+            return fallback.search(condition, offset, limit);
+        }
+        int shape = MemberSearchQueryRegistry.shapeOf(condition);
+        long start = System.nanoTime();
+        List<MemberTeamDTO> result = snapshot.search(condition, offset, limit);
+        timer(contentTimers, shape, "content").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    @Override
+    public long count(MemberSearchCondition condition) {
+        if (!usable()) {
+            fallbacks.increment();
+            return fallback.count(condition);
+        }
+        int shape = MemberSearchQueryRegistry.shapeOf(condition);
+        long start = System.nanoTime();
+        long count = snapshot.count(condition);
+        timer(countTimers, shape, "count").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return count;
+    }
+
+    @Override
+    public long countJoined(MemberSearchCondition condition) {
+        if (!usable()) {
+            fallbacks.increment();
+            return fallback.countJoined(condition);
+        }
+        int shape = MemberSearchQueryRegistry.shapeOf(condition);
+        long start = System.nanoTime();
+        long count = snapshot.countJoined(condition);
+        timer(joinedCountTimers, shape, "count-joined").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return count;
+    }
+
+    private boolean usable() {
+        return snapshot.isReady()
+                && !(TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    private Timer timer(AtomicReferenceArray<Timer> timers, int shape, String kind) {
+        Timer timer = timers.get(shape);
+        if (timer == null) {
+            timer = Timer.builder("member.search.shape")
+                    .tag("engine", "snapshot")
+                    .tag("shape", MemberSearchQueryRegistry.shapeName(shape))
+                    .tag("kind", kind)
+                    .register(meterRegistry);
+            timers.set(shape, timer);
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,152 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.dto.QMemberTeamDTO;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+// MemberSearchQueryRegistry 와 같은 검색을 QueryDSL SQL 로 실행
+// JPQL 변환 / 하이버네이트 결과 처리(영속성 컨텍스트, ResultTransformer) 없이 ResultSet 을 바로 MemberTeamDTO 로 만듦
+// 커넥션은 진행 중인 스프링 트랜잭션의 것을 사용 (트랜잭션 밖에서는 호출 불가, SpringConnectionProvider)
+// 쿼리 타입(SMember, STeam)은 study.querydsl.sql 패키지에 직접 관리 (엔티티 컬럼이 바뀌면 같이 고쳐야 함)
+@Component
+public class SqlMemberSearchEngine implements MemberSearchEngine {
+
+    private static final QMemberTeamDTO projection = new QMemberTeamDTO(
+            member.memberId,
+            member.username,
+            member.age,
+            team.teamId,
+            team.name);
+
+    private final SQLQueryFactory queryFactory;
+    private final EntityManager em;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicReferenceArray<Timer> contentTimers = new AtomicReferenceArray<>(16);
+    private final AtomicReferenceArray<Timer> countTimers = new AtomicReferenceArray<>(16);
+    private final AtomicReferenceArray<Timer> joinedCountTimers = new AtomicReferenceArray<>(16);
+
+    public SqlMemberSearchEngine(SQLQueryFactory queryFactory, EntityManager em, MeterRegistry meterRegistry) {
+        this.queryFactory = queryFactory;
+        this.em = em;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public List<MemberTeamDTO> search(MemberSearchCondition condition, long offset, int limit) {
+        int shape = MemberSearchQueryRegistry.shapeOf(condition);
+        long start = System.nanoTime();
+        flushPersistenceContext();
+
+        SQLQuery<MemberTeamDTO> query = queryFactory
+                .select(projection)
+                .from(member)
+                .join(team).on(member.teamId.eq(team.teamId))
+                .where(where(condition))
+                .orderBy(member.memberId.asc());
+        if (offset > 0) {
+            query.offset(offset);
+        }
+        if (limit >= 0) {
+            query.limit(limit);
+        }
+        List<MemberTeamDTO> result = query.fetch();
+
+        timer(contentTimers, shape, "content").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    @Override
+    public long count(MemberSearchCondition condition) {
+        int shape = MemberSearchQueryRegistry.shapeOf(condition);
+        long start = System.nanoTime();
+        flushPersistenceContext();
+
+        SQLQuery<?> query = queryFactory.from(member);
+        // 팀 조건이 없으면 left join 은 건수에 영향이 없으므로 생략
+        if (hasText(condition.getTeamName())) {
+            query.leftJoin(team).on(member.teamId.eq(team.teamId));
+        }
+        long count = query.where(where(condition)).fetchCount();
+
+        timer(countTimers, shape, "count").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return count;
+    }
+
+    @Override
+    public long countJoined(MemberSearchCondition condition) {
+        int shape = MemberSearchQueryRegistry.shapeOf(condition);
+        long start = System.nanoTime();
+        flushPersistenceContext();
+
+        long count = queryFactory
+                .from(member)
+                .join(team).on(member.teamId.eq(team.teamId))
+                .where(where(condition))
+                .fetchCount();
+
+        timer(joinedCountTimers, shape, "count-joined").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return count;
+    }
+
+    // 같은 트랜잭션에서 persist / 변경한 엔티티가 SQL 결과에도 보이도록 (JPQL 의 FlushMode.AUTO 와 같은 효과)
+    private void flushPersistenceContext() {
+        if (em.isJoinedToTransaction()) {
+            em.flush();
+        }
+    }
+
+    private Predicate[] where(MemberSearchCondition condition) {
+        return new Predicate[]{
+                userNameEq(condition.getUserName()),
+                teamNameEq(condition.getTeamName()),
+                userAgeGoe(condition.getAgeGoe()),
+                userAgeLoe(condition.getAgeLoe())
+        };
+    }
+
+    private Timer timer(AtomicReferenceArray<Timer> timers, int shape, String kind) {
+        Timer timer = timers.get(shape);
+        if (timer == null) {
+            timer = Timer.builder("member.search.shape")
+                    .tag("engine", "sql")
+                    .tag("shape", MemberSearchQueryRegistry.shapeName(shape))
+                    .tag("kind", kind)
+                    .register(meterRegistry);
+            timers.set(shape, timer);
+        }
+        return timer;
+    }
+
+    private BooleanExpression userNameEq(String userName) {
+        return hasText(userName) ? member.username.eq(userName) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression userAgeGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression userAgeLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
@@ -0,0 +1,350 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import study.querydsl.event.BulkChangedEvent;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.event.MemberState;
+import study.querydsl.event.TeamChangedEvent;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 팀(team_id)별 나이 -> 회원 수 를 메모리에 유지 (팀 없는 회원은 검색 / 통계에 안 나오므로 세지 않음)
+// TeamStatsReadModel (/teams/stats) 과 MemberCountEstimator (searchPageEstimated 전체 건수) 가 같이 읽음
+// - 커밋된 Member 변경(저장 / changeTeam / 나이 변경 / 삭제)은 이전 상태를 빼고 이후 상태를 더함
+// - 벌크 연산 / 이전 상태를 모르는 변경은 커밋된 뒤에 다시 만들고, 다시 만드는 동안은 ready = false
+// - 다시 만드는 동안 커밋된 변경은 회원별 마지막 상태로 모아 두었다가 새 집계에 다시 적용
+//   스캔에 그 변경이 이미 보였는지 알 수 없으므로 스캔한 행 값을 빼고 마지막 상태를 더함 (그래서 스캔은 회원 단위)
+// - 다른 노드에서의 변경 등으로 생긴 차이는 refresh-interval 마다 다시 만들어서 맞춤
+@Slf4j
+@Component
+public class TeamAgeHistogram {
+
+    private static final String MEMBER_SCAN =
+            "select m.member_id, m.team_id, m.age from member m where m.team_id is not null order by m.member_id";
+    private static final String TEAM_SCAN = "select t.team_id, t.name from team t";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    // 아래는 this 로 보호
+    // team_id -> 나이별 회원 수 (회원 없는 팀은 없음)
+    private Map<Long, TeamAges> teams = new HashMap<>();
+    // team_id -> 팀명
+    private Map<Long, String> teamNames = new HashMap<>();
+    // 다시 만드는 중이면 그동안 커밋된 변경 : member_id -> 마지막 상태 (삭제 / 팀 없음이면 null), team_id -> 팀명 (삭제면 null)
+    private Map<Long, MemberState> pendingMembers;
+    private Map<Long, String> pendingTeamNames;
+
+    private volatile boolean ready;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    // 청크 벌크처럼 벌크 이벤트가 연달아 와도 다시 만들기는 한 번만 대기열에
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    // 다시 만드는 도중에 벌크 연산이 커밋되면 그 스캔으로는 ready 로 만들지 않음 (대기열의 다음 다시 만들기에서)
+    private final AtomicLong invalidations = new AtomicLong();
+    // 마지막으로 다시 만든 뒤 반영한 회원 변경 수 (MemberCountEstimator 의 오차 범위)
+    private final AtomicLong changesSinceRebuild = new AtomicLong();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "team-age-histogram");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TeamAgeHistogram(JdbcTemplate jdbcTemplate,
+                            @Value("${team.age-histogram.enabled:true}") boolean enabled,
+                            @Value("${team.age-histogram.refresh-interval:10m}") Duration refreshInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        if (enabled) {
+            long refresh = refreshInterval.toMillis();
+            executor.scheduleWithFixedDelay(this::rebuildQuietly, refresh, refresh, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // 꺼져 있거나 다시 만드는 중이면 false -> 읽는 쪽에서 DB 로
+    public boolean isReady() {
+        return ready;
+    }
+
+    // 0 이면 집계가 마지막 스캔과 같음
+    public long changesSinceRebuild() {
+        return changesSinceRebuild.get();
+    }
+
+    // 잠금을 잡은 채로 팀마다 호출 (TeamAges 를 밖에 들고 나가지 않음)
+    public synchronized void forEachTeam(TeamVisitor visitor) {
+        teams.forEach((teamId, ages) -> visitor.visit(teamId, teamNames.get(teamId), ages));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildAsync();
+    }
+
+    // 롤백된 변경이 섞이지 않도록 커밋된 뒤에 반영
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMemberChangeCommitted(MemberChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            if (pendingMembers != null) {
+                // 다시 적용할 때는 이전 상태를 쓰지 않으므로 이전 상태를 모르는 변경도 모아 두면 됨
+                MemberState after = event.getAfter();
+                pendingMembers.put(event.getMemberId(), after == null || after.getTeamId() == null ? null : after);
+                if (after != null && after.getTeamId() != null && after.getTeamName() != null) {
+                    pendingTeamNames.put(after.getTeamId(), after.getTeamName());
+                }
+            }
+            if (!ready) {
+                return;
+            }
+            if (!event.isBeforeUnknown()) {
+                add(event.getBefore(), -1);
+                add(event.getAfter(), 1);
+                changesSinceRebuild.incrementAndGet();
+                return;
+            }
+            if (pendingMembers != null) {
+                // 지금 다시 만드는 중 -> 모아 둔 마지막 상태로 맞춰짐
+                return;
+            }
+        }
+        invalidate();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTeamChangeCommitted(TeamChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            if (pendingTeamNames != null) {
+                pendingTeamNames.put(event.getTeamId(), event.getNameAfter());
+            }
+            rename(teamNames, event.getTeamId(), event.getNameAfter());
+        }
+    }
+
+    // 벌크 update / delete (MemberBulkOperations 청크 포함) 는 바뀐 행을 모르므로 커밋된 뒤에 다시 만듦
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBulkChangeCommitted(BulkChangedEvent event) {
+        if ("member".equals(event.getTable()) || "team".equals(event.getTable())) {
+            invalidate();
+        }
+    }
+
+    private void invalidate() {
+        ready = false;
+        invalidations.incrementAndGet();
+        rebuildAsync();
+    }
+
+    public void rebuildAsync() {
+        if (enabled && rebuildQueued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                rebuildQueued.set(false);
+                rebuildQuietly();
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("team age histogram rebuild failed", e);
+        }
+    }
+
+    void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            long invalidationsBefore;
+            synchronized (this) {
+                pendingMembers = new HashMap<>();
+                pendingTeamNames = new HashMap<>();
+                invalidationsBefore = invalidations.get();
+            }
+
+            ScannedRows rows = new ScannedRows();
+            Map<Long, TeamAges> newTeams = new HashMap<>();
+            jdbcTemplate.query(MEMBER_SCAN, rs -> {
+                long teamId = rs.getLong(2);
+                int age = rs.getInt(3);
+                rows.add(rs.getLong(1), teamId, age);
+                newTeams.computeIfAbsent(teamId, id -> new TeamAges()).add(age, 1);
+            });
+            Map<Long, String> newTeamNames = new HashMap<>();
+            jdbcTemplate.query(TEAM_SCAN, rs -> {
+                newTeamNames.put(rs.getLong(1), rs.getString(2));
+            });
+
+            synchronized (this) {
+                try {
+                    for (Map.Entry<Long, MemberState> change : pendingMembers.entrySet()) {
+                        int row = rows.find(change.getKey());
+                        if (row >= 0) {
+                            TeamAges scanned = newTeams.get(rows.teamIds[row]);
+                            scanned.add(rows.ages[row], -1);
+                            if (scanned.count == 0) {
+                                newTeams.remove(rows.teamIds[row]);
+                            }
+                        }
+                        MemberState after = change.getValue();
+                        if (after != null) {
+                            newTeams.computeIfAbsent(after.getTeamId(), id -> new TeamAges()).add(after.getAge(), 1);
+                        }
+                    }
+                    pendingTeamNames.forEach((teamId, name) -> rename(newTeamNames, teamId, name));
+                    teams = newTeams;
+                    teamNames = newTeamNames;
+                    changesSinceRebuild.set(0);
+                } finally {
+                    pendingMembers = null;
+                    pendingTeamNames = null;
+                }
+            }
+            if (invalidations.get() == invalidationsBefore) {
+                ready = true;
+            }
+            log.debug("team age histogram rebuilt. members={}, teams={}, took={}ms", rows.size, newTeamNames.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pendingMembers = null;
+                pendingTeamNames = null;
+            }
+            throw e;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private void add(MemberState state, int delta) {
+        if (state == null || state.getTeamId() == null) {
+            return;
+        }
+        if (state.getTeamName() != null) {
+            teamNames.put(state.getTeamId(), state.getTeamName());
+        }
+        TeamAges ages = teams.computeIfAbsent(state.getTeamId(), id -> new TeamAges());
+        ages.add(state.getAge(), delta);
+        if (ages.count == 0) {
+            teams.remove(state.getTeamId());
+        }
+    }
+
+    private static void rename(Map<Long, String> names, Long teamId, String name) {
+        if (name == null) {
+            names.remove(teamId);
+        } else {
+            names.put(teamId, name);
+        }
+    }
+
+    public interface TeamVisitor {
+        void visit(Long teamId, String teamName, TeamAges ages);
+    }
+
+    // 팀 하나의 나이 -> 회원 수, min / max 는 첫 / 마지막 키
+    public static class TeamAges {
+        private final TreeMap<Integer, long[]> ages = new TreeMap<>();
+        private long count;
+        private long ageSum;
+
+        private void add(int age, long delta) {
+            long[] n = ages.computeIfAbsent(age, a -> new long[1]);
+            // 놓친 이벤트 등으로 음수가 되지 않도록 (refresh 때 맞춰짐)
+            long applied = Math.max(-n[0], delta);
+            n[0] += applied;
+            if (n[0] == 0) {
+                ages.remove(age);
+            }
+            count += applied;
+            ageSum += applied * age;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        // ageGoe <= 나이 <= ageLoe 인 회원 수 (null 이면 그쪽은 제한 없음)
+        public long count(Integer ageGoe, Integer ageLoe) {
+            if (ageGoe == null && ageLoe == null) {
+                return count;
+            }
+            int from = ageGoe == null ? Integer.MIN_VALUE : ageGoe;
+            int to = ageLoe == null ? Integer.MAX_VALUE : ageLoe;
+            if (from > to) {
+                return 0;
+            }
+            long result = 0;
+            for (long[] n : ages.subMap(from, true, to, true).values()) {
+                result += n[0];
+            }
+            return result;
+        }
+
+        public long ageSum() {
+            return ageSum;
+        }
+
+        public int ageMin() {
+            return ages.firstKey();
+        }
+
+        public int ageMax() {
+            return ages.lastKey();
+        }
+    }
+
+    // 다시 만들 때 스캔한 회원 행 (member_id 오름차순) - 스캔하는 동안 커밋된 변경을 다시 적용할 때 스캔 값을 찾음
+    private static class ScannedRows {
+        private long[] memberIds = new long[1024];
+        private long[] teamIds = new long[1024];
+        private int[] ages = new int[1024];
+        private int size;
+
+        private void add(long memberId, long teamId, int age) {
+            if (size == memberIds.length) {
+                memberIds = Arrays.copyOf(memberIds, size * 2);
+                teamIds = Arrays.copyOf(teamIds, size * 2);
+                ages = Arrays.copyOf(ages, size * 2);
+            }
+            memberIds[size] = memberId;
+            teamIds[size] = teamId;
+            ages[size] = age;
+            size++;
+        }
+
+        private int find(long memberId) {
+            return Arrays.binarySearch(memberIds, 0, size, memberId);
+        }
+    }
+}
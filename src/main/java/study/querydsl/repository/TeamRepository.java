@@ -0,0 +1,22 @@
+package study.querydsl.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import study.querydsl.entity.Team;
+
+import javax.persistence.QueryHint;
+import java.util.Optional;
+
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
+
+public interface TeamRepository extends JpaRepository<Team, Long>, TeamRepositoryCustom {
+
+    // 쿼리 캐시 : 이름 -> team id 를 캐시하고 엔티티는 2차 캐시(team region) 에서 가져옴
+    // team 테이블이 바뀌면 (insert / update / delete) 하이버네이트가 이 region 의 결과를 무효화
+    @QueryHints({
+            @QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = "team.byName")
+    })
+    Optional<Team> findByName(String name);
+}
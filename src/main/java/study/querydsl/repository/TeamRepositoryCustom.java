@@ -0,0 +1,12 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.TeamMembersDTO;
+
+public interface TeamRepositoryCustom {
+
+    // 팀을 먼저 페이징하고, 그 팀들의 회원을 IN 쿼리 한 번으로 가져와서 팀별로 묶음
+    // 컬렉션 fetch join 없이 페이징 (쿼리 수는 회원 수와 무관하게 최대 3 : 팀 / count / 회원)
+    Page<TeamMembersDTO> searchTeamsWithMembers(Pageable pageable);
+}
@@ -0,0 +1,66 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDTO;
+import study.querydsl.dto.QMemberDTO;
+import study.querydsl.dto.TeamMembersDTO;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.querydsl.core.group.GroupBy.groupBy;
+import static com.querydsl.core.group.GroupBy.list;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+// 조회 전용 -> 복제 DB 로 라우팅 (MemberRepositoryCustomImpl 과 같음)
+@Transactional(readOnly = true)
+public class TeamRepositoryCustomImpl implements TeamRepositoryCustom {
+
+    private final JPAQueryFactory queryFactory;
+
+    public TeamRepositoryCustomImpl(EntityManager em) {
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    @Override
+    public Page<TeamMembersDTO> searchTeamsWithMembers(Pageable pageable) {
+        // 1단계 : 팀만 페이징 (Team.members 를 fetch join 하면 메모리에서 페이징하므로 쓰지 않음)
+        List<Tuple> teams = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        // 2단계 : 그 팀들의 회원을 DTO 로 한 번에 조회해서 team_id 별로 묶음 (엔티티 / 지연 로딩 없음)
+        List<Long> teamIds = teams.stream().map(t -> t.get(team.id)).collect(Collectors.toList());
+        Map<Long, List<MemberDTO>> membersByTeam = teamIds.isEmpty()
+                ? Collections.emptyMap()
+                : queryFactory
+                .from(member)
+                .where(member.team.id.in(teamIds))
+                .orderBy(member.id.asc())
+                .transform(groupBy(member.team.id).as(list(new QMemberDTO(member.username, member.age))));
+
+        List<TeamMembersDTO> content = new ArrayList<>(teams.size());
+        for (Tuple t : teams) {
+            Long teamId = t.get(team.id);
+            content.add(new TeamMembersDTO(teamId, t.get(team.name),
+                    membersByTeam.getOrDefault(teamId, Collections.emptyList())));
+        }
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> queryFactory.select(team.count()).from(team).fetchOne());
+    }
+}
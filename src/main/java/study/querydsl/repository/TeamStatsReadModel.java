@@ -0,0 +1,53 @@
+package study.querydsl.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.TeamStatsDTO;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// 팀별 회원 통계 (count / sum / avg / min / max 나이)
+// groupBy(team) 집계를 요청마다 하지 않고 TeamAgeHistogram 의 팀별 나이 -> 회원 수 에서 구함
+// - 삭제 / 팀 이동이 있어도 min / max 를 다시 집계하지 않고 첫 / 마지막 나이로 구함
+// - 조회는 팀 수만큼만 (회원 수와 무관)
+// 집계를 다시 만드는 중이면 DB 에서 직접 집계
+@Component
+public class TeamStatsReadModel {
+
+    private static final String TEAM_STATS_SQL =
+            "select m.team_id, t.name, count(*), sum(m.age), min(m.age), max(m.age)"
+                    + " from member m left join team t on t.team_id = m.team_id"
+                    + " where m.team_id is not null group by m.team_id, t.name";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TeamAgeHistogram histogram;
+    private final boolean enabled;
+
+    public TeamStatsReadModel(JdbcTemplate jdbcTemplate,
+                              TeamAgeHistogram histogram,
+                              @Value("${team.stats.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.histogram = histogram;
+        this.enabled = enabled;
+    }
+
+    // 팀명 순 (같은 이름이면 team_id 순)
+    public List<TeamStatsDTO> stats() {
+        List<TeamStatsDTO> result = new ArrayList<>();
+        if (enabled && histogram.isReady()) {
+            histogram.forEachTeam((teamId, teamName, ages) -> result.add(new TeamStatsDTO(
+                    teamId, teamName, ages.count(), ages.ageSum(), ages.ageMin(), ages.ageMax())));
+        } else {
+            jdbcTemplate.query(TEAM_STATS_SQL, rs -> {
+                result.add(new TeamStatsDTO(rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getLong(4),
+                        rs.getInt(5), rs.getInt(6)));
+            });
+        }
+        result.sort(Comparator.comparing(TeamStatsDTO::getTeamName, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(TeamStatsDTO::getTeamId));
+        return result;
+    }
+}
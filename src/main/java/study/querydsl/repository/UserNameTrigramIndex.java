@@ -0,0 +1,391 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import study.querydsl.event.BulkChangedEvent;
+import study.querydsl.event.UserChangedEvent;
+
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// UsersEntity.userName 의 trigram(연속된 3글자) -> user id 역색인
+// contains(x) 검색 전에 x 의 모든 trigram 을 가진 id 만 후보로 추림 (UserRepository.findSearch)
+// 색인은 후보를 "넉넉하게" 주는 용도 -> 실제 결과는 항상 contains 조건으로 다시 거르므로 남는 후보(false positive)는 문제 없음
+// 빠지는 후보(false negative)만 없도록 유지
+// - flush 시점 : 새 이름의 trigram 추가 (롤백되더라도 후보가 남을 뿐)
+// - 삭제 커밋 후 : 해당 id 제거 (id 는 재사용되지 않음)
+// - 이름 변경 : 이전 이름의 trigram 은 남겨두고 stale 로 세다가 많아지면 다시 만듦
+// - 벌크 변경(JDBC, execute()) : flush 시점부터 다시 만들 때까지 사용하지 않음 (LIKE 로 검색)
+//   다시 만들기는 커밋(또는 롤백)된 뒤에 시작 -> 커밋 전 이름을 스캔해서 준비 완료로 표시하지 않음
+// - 다른 노드 / JDBC 로 바뀐 이름은 이벤트가 없으므로 refresh-interval 마다 다시 만들어서 맞춤
+@Slf4j
+@Component
+public class UserNameTrigramIndex {
+
+    static final int GRAM = 3;
+
+    private static final String SCAN = "select user_id, user_name from users_entity";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final long replayWindowNanos;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // lock 으로 보호
+    private Map<Long, PostingList> postings = new HashMap<>();
+    private List<Long> pendingRemovals;
+
+    private volatile boolean ready;
+    private final AtomicLong users = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+
+    // 최근 추가 기록 : 다시 만드는 동안 아직 커밋 안 된(스캔에 안 보이는) 변경을 새 색인에 다시 적용하기 위함
+    private final ConcurrentLinkedDeque<RecentAdd> recentAdds = new ConcurrentLinkedDeque<>();
+
+    private final ScheduledExecutorService rebuildExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "users-name-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UserNameTrigramIndex(JdbcTemplate jdbcTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${users.name-index.enabled:true}") boolean enabled,
+                                @Value("${users.name-index.replay-window:10m}") Duration replayWindow,
+                                @Value("${users.name-index.refresh-interval:10m}") Duration refreshInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.replayWindowNanos = replayWindow.toNanos();
+        if (enabled) {
+            long refresh = refreshInterval.toMillis();
+            rebuildExecutor.scheduleWithFixedDelay(this::rebuildQuietly, refresh, refresh, TimeUnit.MILLISECONDS);
+        }
+
+        Gauge.builder("users.name.index.ready", this, index -> index.ready ? 1 : 0).register(meterRegistry);
+        Gauge.builder("users.name.index.trigrams", this, UserNameTrigramIndex::trigramCount).register(meterRegistry);
+        Gauge.builder("users.name.index.stale", stale, AtomicLong::get).register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // query 의 모든 trigram 을 가진 user id (오름차순)
+    // 색인을 쓸 수 없으면 (준비 안 됨, 3글자 미만) null -> LIKE 로 검색
+    public long[] candidates(String query) {
+        if (!ready || query == null || query.length() < GRAM) {
+            return null;
+        }
+        long[] grams = trigrams(query);
+        List<PostingList> lists = new ArrayList<>(grams.length);
+        lock.readLock().lock();
+        try {
+            for (long gram : grams) {
+                PostingList list = postings.get(gram);
+                if (list == null) {
+                    return new long[0];
+                }
+                lists.add(list);
+            }
+            // 가장 짧은 목록에서 시작해서 나머지에 모두 있는 id 만 남김
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            long[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+            int size = result.length;
+            for (int i = 1; i < lists.size() && size > 0; i++) {
+                PostingList list = lists.get(i);
+                int kept = 0;
+                for (int j = 0; j < size; j++) {
+                    if (list.contains(result[j])) {
+                        result[kept++] = result[j];
+                    }
+                }
+                size = kept;
+            }
+            return size == result.length ? result : Arrays.copyOf(result, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildAsync();
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.getNameBefore() != null || event.isNameBeforeUnknown()) {
+            staleAdded();
+        } else if (event.getNameAfter() != null) {
+            users.incrementAndGet();
+        }
+        if (event.getNameAfter() != null) {
+            recordAdd(event.getUserId(), event.getNameAfter());
+            lock.writeLock().lock();
+            try {
+                add(postings, event.getUserId(), event.getNameAfter());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // 삭제는 커밋된 뒤에만 반영 (롤백되면 그대로 있어야 하므로)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChangeCommitted(UserChangedEvent event) {
+        if (!enabled || event.getNameAfter() != null || event.getNameBefore() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            remove(postings, event.getUserId(), event.getNameBefore());
+            if (pendingRemovals != null) {
+                pendingRemovals.add(event.getUserId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        users.decrementAndGet();
+    }
+
+    // 같은 트랜잭션의 검색도 바뀐 이름을 놓치지 않도록 flush 시점에 바로 사용 중지
+    @EventListener
+    public void onBulkChanged(BulkChangedEvent event) {
+        if ("users_entity".equals(event.getTable())) {
+            ready = false;
+        }
+    }
+
+    // 커밋된 이름으로 다시 만듦 (그 사이에 끝난 다시 만들기가 준비 완료로 표시했을 수 있으므로 다시 사용 중지)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBulkChangeCommitted(BulkChangedEvent event) {
+        if ("users_entity".equals(event.getTable())) {
+            ready = false;
+            rebuildAsync();
+        }
+    }
+
+    // 롤백돼도 flush 때 사용을 멈췄으므로 다시 만들어야 준비 완료가 됨
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onBulkChangeRolledBack(BulkChangedEvent event) {
+        if ("users_entity".equals(event.getTable())) {
+            rebuildAsync();
+        }
+    }
+
+    public void rebuildAsync() {
+        if (enabled) {
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    // 주기 작업은 예외가 나면 다음부터 실행되지 않으므로
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("users name index refresh failed", e);
+        }
+    }
+
+    void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendingRemovals = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Long, PostingList> rebuilt = new HashMap<>();
+        AtomicLong scanned = new AtomicLong();
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SCAN);
+                statement.setFetchSize(10_000);
+                return statement;
+            }, rs -> {
+                String name = rs.getString(2);
+                if (name != null) {
+                    add(rebuilt, rs.getLong(1), name);
+                }
+                scanned.incrementAndGet();
+            });
+        } catch (RuntimeException e) {
+            log.warn("users name index rebuild failed, searching with LIKE", e);
+            lock.writeLock().lock();
+            try {
+                pendingRemovals = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pruneRecentAdds();
+            for (RecentAdd recent : recentAdds) {
+                add(rebuilt, recent.userId, recent.name);
+            }
+            for (Long userId : pendingRemovals) {
+                removeEverywhere(rebuilt, userId);
+            }
+            postings = rebuilt;
+            pendingRemovals = null;
+            users.set(scanned.get());
+            stale.set(0);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("users name index built : {} users, {} trigrams, {} ms",
+                scanned.get(), rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void staleAdded() {
+        // 사용자의 10% 이상이 이전 이름의 trigram 을 달고 있으면 다시 만듦
+        if (stale.incrementAndGet() > Math.max(1000, users.get() / 10) && ready) {
+            stale.set(0);
+            rebuildAsync();
+        }
+    }
+
+    private void recordAdd(Long userId, String name) {
+        recentAdds.addLast(new RecentAdd(userId, name, System.nanoTime()));
+        pruneRecentAdds();
+    }
+
+    private void pruneRecentAdds() {
+        long now = System.nanoTime();
+        RecentAdd head;
+        while ((head = recentAdds.peekFirst()) != null && now - head.nanos > replayWindowNanos) {
+            recentAdds.pollFirst();
+        }
+    }
+
+    private int trigramCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void add(Map<Long, PostingList> postings, long userId, String name) {
+        for (long gram : trigrams(name)) {
+            postings.computeIfAbsent(gram, g -> new PostingList()).add(userId);
+        }
+    }
+
+    private static void remove(Map<Long, PostingList> postings, long userId, String name) {
+        for (long gram : trigrams(name)) {
+            PostingList list = postings.get(gram);
+            if (list != null) {
+                list.remove(userId);
+            }
+        }
+        // 이름이 바뀐 적이 있으면 이전 이름의 trigram 에도 남아 있을 수 있음 (stale) -> 다시 만들 때 정리됨
+    }
+
+    private static void removeEverywhere(Map<Long, PostingList> postings, long userId) {
+        for (PostingList list : postings.values()) {
+            list.remove(userId);
+        }
+    }
+
+    // 중복 없는 trigram, 글자 3개(UTF-16)를 long 하나로
+    static long[] trigrams(String text) {
+        int count = Math.max(0, text.length() - GRAM + 1);
+        long[] grams = new long[count];
+        for (int i = 0; i < count; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    // 정렬된 id 목록 (id 는 대부분 증가하는 순서로 들어오므로 끝에 추가하는 경우가 많음)
+    static final class PostingList {
+
+        long[] ids = new long[4];
+        int size;
+
+        void add(long id) {
+            if (size == 0 || id > ids[size - 1]) {
+                grow();
+                ids[size++] = id;
+                return;
+            }
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            grow();
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        void remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                size--;
+            }
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private void grow() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+        }
+    }
+
+    private static final class RecentAdd {
+
+        private final long userId;
+        private final String name;
+        private final long nanos;
+
+        private RecentAdd(long userId, String name, long nanos) {
+            this.userId = userId;
+            this.name = name;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -3,28 +3,48 @@ package study.querydsl.repository;
 
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.UserSearchDTO;
 import study.querydsl.entity.QUsersEntity;
 import study.querydsl.entity.UsersEntity;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QUsersEntity.usersEntity;
 
+// 조회 전용 -> 복제 DB 로 라우팅, read-only 세션 (MemberJpaRepository 참고)
 @Repository
+@Transactional(readOnly = true)
 public class UserRepository {
 
+    // IN 절 하나에 넣는 후보 id 수
+    private static final int IN_CHUNK = 1000;
+
     private final EntityManager manager;
 
     // QueryDSL 의존성 주입
     private JPAQueryFactory queryFactory;
 
+    private final UserNameTrigramIndex nameIndex;
+    private final int maxCandidates;
+
     // 생성자
-    public UserRepository(EntityManager manager) {
+    public UserRepository(EntityManager manager,
+                          UserNameTrigramIndex nameIndex,
+                          @Value("${users.name-index.max-candidates:10000}") int maxCandidates) {
         this.manager = manager;
+        this.nameIndex = nameIndex;
+        this.maxCandidates = maxCandidates;
         // 기본적으로 QueryDSL 은 jpa를 활용하여 사용하기 때문에
         // EntityManager 를 주입시켜줘야 합니다.
         this.queryFactory = new JPAQueryFactory(manager);
@@ -41,16 +61,68 @@ public class UserRepository {
         return result;
     }
 
+    // 전체 조회 (스트리밍)
+    // 엔티티를 한 건씩 읽고, clearInterval 건마다 영속성 컨텍스트를 비워서 메모리 사용량을 일정하게 유지
+    // 트랜잭션 안에서 호출하고 다 쓰면 반드시 close (try-with-resources)
+    public Stream<UsersEntity> streamAll(int fetchSize, int clearInterval) {
+        if (fetchSize < 1 || clearInterval < 1) {
+            throw new IllegalArgumentException("fetchSize, clearInterval 은 1 이상이어야 합니다. fetchSize="
+                    + fetchSize + ", clearInterval=" + clearInterval);
+        }
+        AtomicLong rows = new AtomicLong();
+        // QueryDSL 4.4 에는 stream() 이 없어서 JPA 쿼리를 꺼내 getResultStream() (forward-only scroll) 사용
+        Stream<?> result = queryFactory
+                .selectFrom(usersEntity)
+                .orderBy(usersEntity.id.asc())
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.READ_ONLY, true)
+                .createQuery()
+                .getResultStream();
+        return result
+                .map(UsersEntity.class::cast)
+                .peek(user -> {
+                    if (rows.incrementAndGet() % clearInterval == 0) {
+                        manager.clear();
+                    }
+                });
+    }
+
 
+    // userName 부분 검색은 trigram 색인으로 후보 id 를 먼저 추린 뒤 그 안에서만 조회 (UserNameTrigramIndex)
+    // 색인을 쓸 수 없거나(3글자 미만, 준비 중) 후보가 너무 많으면 LIKE 로 전체 검색
+    // 어느 쪽이든 contains / userId / userAge 조건은 그대로 적용 -> 결과는 같음
     public List<UsersEntity> findSearch(UserSearchDTO searchDTO) {
+        long[] candidates = null;
+        if (searchDTO.getUserId() == null) {
+            // 같은 트랜잭션에서 아직 flush 안 된 사용자도 색인에 들어가도록
+            if (manager.isJoinedToTransaction()) {
+                manager.flush();
+            }
+            candidates = nameIndex.candidates(searchDTO.getUserName());
+        }
+        if (candidates == null || candidates.length > maxCandidates) {
+            return findSearch(searchDTO, null);
+        }
+
+        List<UsersEntity> result = new ArrayList<>();
+        for (int from = 0; from < candidates.length; from += IN_CHUNK) {
+            long[] chunk = Arrays.copyOfRange(candidates, from, Math.min(from + IN_CHUNK, candidates.length));
+            result.addAll(findSearch(searchDTO, usersEntity.id.in(Arrays.stream(chunk).boxed().collect(Collectors.toList()))));
+        }
+        return result;
+    }
+
+    private List<UsersEntity> findSearch(UserSearchDTO searchDTO, BooleanExpression idIn) {
         return queryFactory
                 .selectFrom(usersEntity)
                 .where(
+                        idIn,
                         // 동적 쿼리 생성
                         userIdEquals(searchDTO.getUserId()),
                         usersEntity.userName.contains(searchDTO.getUserName()),
                         userAgeGoe(searchDTO.getUserAge())
                 )
+                .orderBy(usersEntity.id.asc())
                 .fetch();
     }
 
@@ -0,0 +1,97 @@
+package study.querydsl.seed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.SequenceIds;
+import study.querydsl.event.BulkChangedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 대량 더미 데이터 생성 (InitMember, 벤치마크, 용량 테스트)
+// - em.persist 대신 JDBC batch insert (팀 -> 회원 순서로 테이블별로 모아서)
+// - chunkSize 건마다 커밋 -> 트랜잭션 / undo 가 데이터 크기만큼 커지지 않음
+// - id 는 insert 마다 시퀀스를 부르지 않고 청크 단위로 한 번에 블록으로 받아옴 (SequenceBlockAllocator)
+// JDBC 로 넣기 때문에 영속성 컨텍스트에는 아무것도 쌓이지 않음 (flush / clear 불필요)
+// ddl-auto 로 스키마가 만들어진 뒤에 사용해야 하므로 entityManagerFactory 이후에 생성
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class MemberSeeder {
+
+    private static final String INSERT_TEAM = "insert into team (team_id, name) values (?, ?)";
+    private static final String INSERT_MEMBER = "insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceBlockAllocator idAllocator;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher publisher;
+
+    public MemberSeeder(JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        ApplicationEventPublisher publisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = new SequenceBlockAllocator(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.publisher = publisher;
+    }
+
+    public SeedReport seed(SeedProperties properties) {
+        if (properties.getTeams() < 1 || properties.getChunkSize() < 1) {
+            throw new IllegalArgumentException("teams, chunkSize 는 1 이상이어야 합니다. " + properties);
+        }
+        long start = System.nanoTime();
+
+        long[] teamIds = transactionTemplate.execute(status -> insertTeams(properties.getTeams()));
+
+        TeamSampler sampler = new TeamSampler(properties.getDistribution(), properties.getTeams(),
+                properties.getZipfExponent(), properties.getRandomSeed());
+        int chunks = 0;
+        for (long from = 0; from < properties.getMembers(); from += properties.getChunkSize()) {
+            long to = Math.min(from + properties.getChunkSize(), properties.getMembers());
+            long chunkFrom = from;
+            transactionTemplate.executeWithoutResult(status -> insertMembers(chunkFrom, to, teamIds, sampler));
+            chunks++;
+        }
+
+        // JDBC 로 넣었으므로 엔티티 이벤트가 없음 -> 캐시 등은 벌크 변경으로 처리
+        publisher.publishEvent(new BulkChangedEvent("team"));
+        publisher.publishEvent(new BulkChangedEvent("member"));
+
+        SeedReport report = new SeedReport(properties.getTeams(), properties.getMembers(), chunks,
+                (System.nanoTime() - start) / 1_000_000);
+        log.info("seed finished. {} ({} rows/s)", report, String.format("%.0f", report.getRowsPerSecond()));
+        return report;
+    }
+
+    private long[] insertTeams(int teams) {
+        long[] ids = idAllocator.allocate(SequenceIds.TEAM_SEQ, teams);
+        List<Object[]> rows = new ArrayList<>(teams);
+        for (int t = 0; t < teams; t++) {
+            rows.add(new Object[]{ids[t], teamName(t)});
+        }
+        jdbcTemplate.batchUpdate(INSERT_TEAM, rows);
+        return ids;
+    }
+
+    private void insertMembers(long from, long to, long[] teamIds, TeamSampler sampler) {
+        int size = (int) (to - from);
+        long[] ids = idAllocator.allocate(SequenceIds.MEMBER_SEQ, size);
+        List<Object[]> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long index = from + i;
+            rows.add(new Object[]{ids[i], "member" + index, (int) (index % 100), teamIds[sampler.next(index)]});
+        }
+        jdbcTemplate.batchUpdate(INSERT_MEMBER, rows);
+    }
+
+    // teamA ~ teamZ, 그 뒤로는 team26, team27 ...
+    static String teamName(int index) {
+        return index < 26 ? "team" + (char) ('A' + index) : "team" + index;
+    }
+}
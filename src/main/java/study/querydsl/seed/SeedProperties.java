@@ -0,0 +1,30 @@
+package study.querydsl.seed;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+// 더미 데이터 생성 설정 (application.yml 의 seed.*)
+@Component
+@ConfigurationProperties(prefix = "seed")
+@Getter @Setter
+@ToString
+public class SeedProperties {
+
+    private int members = 100;
+
+    private int teams = 2;
+
+    // 한 트랜잭션(커밋)에서 넣는 회원 수, JDBC batch 크기와 같음
+    private int chunkSize = 1000;
+
+    private TeamDistribution distribution = TeamDistribution.ROUND_ROBIN;
+
+    // ZIPF 일 때의 기울기 (클수록 앞쪽 팀에 몰림)
+    private double zipfExponent = 1.0;
+
+    // 같은 값이면 같은 데이터가 만들어짐
+    private long randomSeed = 42L;
+}
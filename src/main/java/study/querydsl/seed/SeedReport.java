@@ -0,0 +1,25 @@
+package study.querydsl.seed;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class SeedReport {
+
+    private final int teams;
+    private final long members;
+    private final int chunks;
+    private final long elapsedMillis;
+
+    public SeedReport(int teams, long members, int chunks, long elapsedMillis) {
+        this.teams = teams;
+        this.members = members;
+        this.chunks = chunks;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? members : members * 1000.0 / elapsedMillis;
+    }
+}
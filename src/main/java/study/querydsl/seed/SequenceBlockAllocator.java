@@ -0,0 +1,36 @@
+package study.querydsl.seed;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.entity.SequenceIds;
+
+import java.util.List;
+
+// JDBC 로 insert 할 때 엔티티와 같은 pooled-lo 규칙으로 id 를 받아옴
+// nextval 한 번 = SequenceIds.ALLOCATION_SIZE 개짜리 블록, 필요한 블록 수만큼 한 번의 쿼리로 조회 (H2 system_range)
+// 하이버네이트가 같은 시퀀스에서 받은 블록과 겹치지 않음 (블록에서 남은 id 는 버림)
+public class SequenceBlockAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SequenceBlockAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long[] allocate(String sequenceName, int count) {
+        long[] ids = new long[count];
+        if (count == 0) {
+            return ids;
+        }
+        int blocks = (count + SequenceIds.ALLOCATION_SIZE - 1) / SequenceIds.ALLOCATION_SIZE;
+        List<Long> blockStarts = jdbcTemplate.queryForList(
+                "select nextval('" + sequenceName + "') from system_range(1, ?)", Long.class, blocks);
+
+        int i = 0;
+        for (Long blockStart : blockStarts) {
+            for (int offset = 0; offset < SequenceIds.ALLOCATION_SIZE && i < count; offset++) {
+                ids[i++] = blockStart + offset;
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,14 @@
+package study.querydsl.seed;
+
+// 회원을 팀에 배정하는 방식
+public enum TeamDistribution {
+
+    // i % teams (기존 InitMember 와 같은 배정)
+    ROUND_ROBIN,
+
+    // 모든 팀이 같은 확률
+    UNIFORM,
+
+    // k 번째 팀의 확률이 1 / k^exponent 에 비례 (소수의 팀에 회원이 몰림)
+    ZIPF
+}
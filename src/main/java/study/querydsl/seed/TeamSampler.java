@@ -0,0 +1,49 @@
+package study.querydsl.seed;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// i 번째 회원의 팀 인덱스(0 ~ teams-1)를 정함
+class TeamSampler {
+
+    private final TeamDistribution distribution;
+    private final int teams;
+    private final SplittableRandom random;
+
+    // ZIPF 용 누적 확률
+    private final double[] cumulative;
+
+    TeamSampler(TeamDistribution distribution, int teams, double zipfExponent, long randomSeed) {
+        this.distribution = distribution;
+        this.teams = teams;
+        this.random = new SplittableRandom(randomSeed);
+        this.cumulative = distribution == TeamDistribution.ZIPF ? zipfCumulative(teams, zipfExponent) : null;
+    }
+
+    int next(long memberIndex) {
+        switch (distribution) {
+            case ROUND_ROBIN:
+                return (int) (memberIndex % teams);
+            case UNIFORM:
+                return random.nextInt(teams);
+            case ZIPF:
+                int index = Arrays.binarySearch(cumulative, random.nextDouble());
+                return Math.min(index >= 0 ? index : -index - 1, teams - 1);
+            default:
+                throw new IllegalStateException("unknown distribution " + distribution);
+        }
+    }
+
+    private static double[] zipfCumulative(int teams, double exponent) {
+        double[] cumulative = new double[teams];
+        double sum = 0;
+        for (int k = 0; k < teams; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < teams; k++) {
+            cumulative[k] /= sum;
+        }
+        return cumulative;
+    }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.repository.MemberRepository;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// 검색 결과를 List 에 모으지 않고 커서에서 읽는 대로 바로 Writer 에 씀 -> 건수와 상관없이 힙 사용량 일정
+// 커서가 열려 있는 동안 커넥션이 필요하므로 스트림 소비까지 하나의 읽기 전용 트랜잭션에서 처리
+@Service
+public class MemberExportService {
+
+    private static final String CSV_HEADER = "memberId,username,age,teamId,teamName";
+
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public MemberExportService(MemberRepository memberRepository,
+                               ObjectMapper objectMapper,
+                               @Value("${member.export.fetch-size:1000}") int fetchSize) {
+        this.memberRepository = memberRepository;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    // 내보낸 건수 반환
+    @Transactional(readOnly = true)
+    public long export(MemberSearchCondition condition, ExportFormat format, Writer writer) throws IOException {
+        try (Stream<MemberTeamDTO> rows = memberRepository.searchStream(condition, fetchSize)) {
+            long count = format == ExportFormat.CSV
+                    ? writeCsv(rows.iterator(), writer)
+                    : writeNdjson(rows.iterator(), writer);
+            writer.flush();
+            return count;
+        }
+    }
+
+    private long writeNdjson(Iterator<MemberTeamDTO> rows, Writer writer) throws IOException {
+        long count = 0;
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        while (rows.hasNext()) {
+            objectMapper.writeValue(generator, rows.next());
+            generator.writeRaw('\n');
+            count++;
+        }
+        generator.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<MemberTeamDTO> rows, Writer writer) throws IOException {
+        long count = 0;
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (rows.hasNext()) {
+            MemberTeamDTO row = rows.next();
+            writer.write(String.valueOf(row.getMemberId()));
+            writer.write(',');
+            writeCsvField(writer, row.getUsername());
+            writer.write(',');
+            writer.write(String.valueOf(row.getAge()));
+            writer.write(',');
+            writer.write(row.getTeamId() != null ? String.valueOf(row.getTeamId()) : "");
+            writer.write(',');
+            writeCsvField(writer, row.getTeamName());
+            writer.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    // RFC 4180 - 쉼표 / 따옴표 / 줄바꿈이 있으면 따옴표로 감싸고 안의 따옴표는 두 번
+    private void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,99 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// /v1/members/import 결과, 문제가 있었던 청크만 chunkErrors 에 남김
+@Getter
+@ToString
+public class MemberImportReport {
+
+    private long lines;
+    private long members;
+    private long teamsCreated;
+    private long invalidLines;
+    private long failedMembers;
+    private int chunks;
+    private int failedChunks;
+    // 커넥션 풀이 밀려서 청크 시작을 미룬 시간 합
+    private long throttledMillis;
+    private long elapsedMillis;
+    // 중간에 인터럽트로 멈췄으면 false
+    private boolean completed = true;
+    private final List<ChunkReport> chunkErrors = new ArrayList<>();
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? members : members * 1000.0 / elapsedMillis;
+    }
+
+    void lines(long lines) {
+        this.lines = lines;
+    }
+
+    void committed(ChunkReport chunk, long members, long teamsCreated) {
+        chunks++;
+        this.members += members;
+        this.teamsCreated += teamsCreated;
+        invalidLines += chunk.getInvalidLines();
+        if (chunk.getInvalidLines() > 0) {
+            chunkErrors.add(chunk);
+        }
+    }
+
+    void failed(ChunkReport chunk, long members) {
+        chunks++;
+        failedChunks++;
+        invalidLines += chunk.getInvalidLines();
+        failedMembers += members;
+        chunkErrors.add(chunk);
+    }
+
+    void throttled(long millis) {
+        throttledMillis += millis;
+    }
+
+    void finished(long elapsedMillis, boolean completed) {
+        this.elapsedMillis = elapsedMillis;
+        this.completed = completed;
+    }
+
+    @Getter
+    @ToString
+    public static class ChunkReport {
+
+        // 잘못된 줄 메시지는 청크마다 이만큼만 (나머지는 invalidLines 로만)
+        private static final int MAX_ERRORS = 20;
+
+        private final int chunk;
+        private final long fromLine;
+        private long toLine;
+        private long invalidLines;
+        // insert 가 실패해서 청크 전체가 롤백됐으면 그 이유
+        private String failure;
+        private final List<String> errors = new ArrayList<>();
+
+        ChunkReport(int chunk, long fromLine) {
+            this.chunk = chunk;
+            this.fromLine = fromLine;
+            this.toLine = fromLine;
+        }
+
+        void line(long line) {
+            toLine = line;
+        }
+
+        void invalid(long line, String message) {
+            invalidLines++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("line " + line + ": " + message);
+            }
+        }
+
+        void failure(String failure) {
+            this.failure = failure;
+        }
+    }
+}
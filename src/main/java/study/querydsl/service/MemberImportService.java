@@ -0,0 +1,356 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberImportLine;
+import study.querydsl.entity.SequenceIds;
+import study.querydsl.event.BulkChangedEvent;
+import study.querydsl.seed.SequenceBlockAllocator;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.util.StringUtils.hasText;
+
+// NDJSON 으로 올라온 팀 / 회원을 청크 단위로 JDBC batch insert (/v1/members/import)
+// - 한 줄에 하나 : {"type":"team","name":"teamA"} / {"type":"member","username":"m1","age":10,"teamName":"teamA"}
+// - 팀은 이름으로 찾음 : 이번 import 에서 찾은 / 만든 팀은 로컬 캐시(이름 -> id)에 두고, 없는 이름만 청크마다 한 번에 조회
+//   DB 에도 없으면 그 청크에서 팀을 만듦 (팀 -> 회원 순서로 테이블별로 모아서 insert, MemberSeeder 와 같은 방식)
+// - chunkSize 줄마다 커밋, 잘못된 줄은 건너뛰고 insert 가 실패한 청크만 롤백 -> 청크별 오류를 리포트로 돌려줌
+// - JDBC 로 넣으므로 엔티티 이벤트가 없음 -> 청크가 커밋될 때마다 벌크 변경 이벤트 (캐시 / 읽기 모델은 그때 다시 맞춤)
+// - backpressure : 청크를 시작하기 전에 커넥션 풀에 기다리는 스레드가 있으면 (최대 maxWait) 쉼
+//   다음 청크를 읽지 않는 동안은 요청 본문도 읽지 않으므로 업로드하는 쪽도 그만큼 느려짐
+// 호출한 쪽에 쓰기 트랜잭션이 있으면 그 트랜잭션 안에서 청크만 나눠서 실행하고, 실패하면 예외를 그대로 던짐
+@Slf4j
+@Service
+public class MemberImportService {
+
+    private static final String INSERT_TEAM = "insert into team (team_id, name) values (?, ?)";
+    private static final String INSERT_MEMBER = "insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)";
+
+    private static final long MIN_BACKOFF_MILLIS = 10;
+    private static final long MAX_BACKOFF_MILLIS = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceBlockAllocator idAllocator;
+    private final TransactionTemplate chunkTransaction;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher publisher;
+    private final DataSource dataSource;
+    private final int chunkSize;
+    private final Duration maxWait;
+
+    private final Counter imported;
+    private final Counter invalid;
+    private final Counter failed;
+    private final Timer throttle;
+
+    public MemberImportService(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               ApplicationEventPublisher publisher,
+                               DataSource dataSource,
+                               MeterRegistry meterRegistry,
+                               @Value("${member.import.chunk-size:1000}") int chunkSize,
+                               @Value("${member.import.max-wait:5s}") Duration maxWait) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("member.import.chunk-size 는 1 이상이어야 합니다. " + chunkSize);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = new SequenceBlockAllocator(jdbcTemplate);
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+        this.publisher = publisher;
+        this.dataSource = dataSource;
+        this.chunkSize = chunkSize;
+        this.maxWait = maxWait;
+        this.imported = rows(meterRegistry, "imported");
+        this.invalid = rows(meterRegistry, "invalid");
+        this.failed = rows(meterRegistry, "failed");
+        this.throttle = meterRegistry.timer("member.import.throttle");
+    }
+
+    private static Counter rows(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("member.import.rows")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public MemberImportReport importNdjson(InputStream in) throws IOException {
+        boolean joined = TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        // 트랜잭션 밖에서 찾아야 RoutingDataSource 도 primary 풀로 풀림
+        HikariPoolMXBean pool = joined ? null : pool();
+
+        long start = System.nanoTime();
+        MemberImportReport report = new MemberImportReport();
+        Map<String, Long> teamIds = new HashMap<>();
+        boolean completed = true;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        int chunkIndex = 0;
+        Chunk chunk = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            if (chunk == null) {
+                chunk = new Chunk(new MemberImportReport.ChunkReport(chunkIndex++, lineNumber));
+            }
+            chunk.add(lineNumber, line);
+            if (chunk.lines == chunkSize) {
+                if (!throttle(pool, report)) {
+                    completed = false;
+                    break;
+                }
+                write(chunk, teamIds, joined, report);
+                chunk = null;
+            }
+        }
+        if (completed && chunk != null) {
+            if (throttle(pool, report)) {
+                write(chunk, teamIds, joined, report);
+            } else {
+                completed = false;
+            }
+        }
+        report.lines(lineNumber);
+
+        report.finished((System.nanoTime() - start) / 1_000_000, completed);
+        log.info("member import finished. {}", report);
+        return report;
+    }
+
+    private void write(Chunk chunk, Map<String, Long> teamIds, boolean joined, MemberImportReport report) {
+        invalid.increment(chunk.report.getInvalidLines());
+        if (chunk.members.isEmpty() && chunk.teams.isEmpty()) {
+            report.committed(chunk.report, 0, 0);
+            return;
+        }
+        Map<String, Long> created;
+        try {
+            created = joined
+                    ? insert(chunk, teamIds)
+                    : chunkTransaction.execute(status -> insert(chunk, teamIds));
+        } catch (DataAccessException e) {
+            if (joined) {
+                throw e;
+            }
+            // 롤백됐으므로 이 청크에서 만든 팀은 캐시에 넣지 않음
+            chunk.report.failure(e.getMostSpecificCause().getMessage());
+            report.failed(chunk.report, chunk.members.size());
+            failed.increment(chunk.members.size());
+            log.warn("member import chunk {} failed. lines {}-{}", chunk.report.getChunk(),
+                    chunk.report.getFromLine(), chunk.report.getToLine(), e);
+            return;
+        }
+        teamIds.putAll(created);
+        report.committed(chunk.report, chunk.members.size(), created.size());
+        imported.increment(chunk.members.size());
+
+        // 뒤 청크가 실패하거나 스트림이 끊겨도 이미 커밋된 청크는 반영되도록 청크마다
+        // (호출한 쪽 트랜잭션 안이면 AFTER_COMMIT 리스너는 그 트랜잭션이 커밋될 때)
+        if (!created.isEmpty()) {
+            publisher.publishEvent(new BulkChangedEvent("team"));
+        }
+        if (!chunk.members.isEmpty()) {
+            publisher.publishEvent(new BulkChangedEvent("member"));
+        }
+    }
+
+    // 이 청크에서 새로 만든 팀 (이름 -> id) 반환 -> 롤백되면 없어지므로 커밋된 뒤에 캐시에 넣음
+    private Map<String, Long> insert(Chunk chunk, Map<String, Long> teamIds) {
+        Set<String> names = new LinkedHashSet<>(chunk.teams);
+        for (MemberImportLine member : chunk.members) {
+            if (hasText(member.getTeamName())) {
+                names.add(member.getTeamName());
+            }
+        }
+        names.removeAll(teamIds.keySet());
+
+        Map<String, Long> created = Collections.emptyMap();
+        if (!names.isEmpty()) {
+            // 이미 있던 팀은 청크가 롤백돼도 남아 있으므로 바로 캐시에 넣음
+            Map<String, Long> found = findTeams(names);
+            teamIds.putAll(found);
+            names.removeAll(found.keySet());
+        }
+        Map<String, Long> resolved = teamIds;
+        if (!names.isEmpty()) {
+            created = insertTeams(names);
+            resolved = new HashMap<>(teamIds);
+            resolved.putAll(created);
+        }
+
+        if (!chunk.members.isEmpty()) {
+            long[] ids = idAllocator.allocate(SequenceIds.MEMBER_SEQ, chunk.members.size());
+            List<Object[]> rows = new ArrayList<>(chunk.members.size());
+            for (int i = 0; i < chunk.members.size(); i++) {
+                MemberImportLine member = chunk.members.get(i);
+                Long teamId = hasText(member.getTeamName()) ? resolved.get(member.getTeamName()) : null;
+                rows.add(new Object[]{ids[i], member.getUsername(), member.getAge(), teamId});
+            }
+            jdbcTemplate.batchUpdate(INSERT_MEMBER, rows);
+        }
+        return created;
+    }
+
+    // 같은 이름의 팀이 여러 개면 먼저 만들어진(id 가 작은) 팀
+    private Map<String, Long> findTeams(Set<String> names) {
+        String in = String.join(", ", Collections.nCopies(names.size(), "?"));
+        Map<String, Long> result = new HashMap<>();
+        jdbcTemplate.query("select name, min(team_id) from team where name in (" + in + ") group by name",
+                rs -> {
+                    result.put(rs.getString(1), rs.getLong(2));
+                }, names.toArray());
+        return result;
+    }
+
+    private Map<String, Long> insertTeams(Set<String> names) {
+        long[] ids = idAllocator.allocate(SequenceIds.TEAM_SEQ, names.size());
+        Map<String, Long> created = new HashMap<>();
+        List<Object[]> rows = new ArrayList<>(names.size());
+        int i = 0;
+        for (String name : names) {
+            created.put(name, ids[i]);
+            rows.add(new Object[]{ids[i], name});
+            i++;
+        }
+        jdbcTemplate.batchUpdate(INSERT_TEAM, rows);
+        return created;
+    }
+
+    // 풀에 커넥션을 기다리는 스레드가 없어질 때까지 (최대 maxWait) 점점 길게 쉼, 인터럽트되면 false
+    private boolean throttle(HikariPoolMXBean pool, MemberImportReport report) {
+        if (pool == null || !saturated(pool)) {
+            return true;
+        }
+        long start = System.nanoTime();
+        long deadline = start + maxWait.toNanos();
+        long backoff = MIN_BACKOFF_MILLIS;
+        try {
+            while (saturated(pool) && System.nanoTime() - deadline < 0) {
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("member import interrupted, stopping before next chunk");
+            return false;
+        } finally {
+            long waited = System.nanoTime() - start;
+            throttle.record(waited, TimeUnit.NANOSECONDS);
+            report.throttled(TimeUnit.NANOSECONDS.toMillis(waited));
+        }
+    }
+
+    private static boolean saturated(HikariPoolMXBean pool) {
+        return pool.getThreadsAwaitingConnection() > 0;
+    }
+
+    // Hikari 풀이 아니면 (p6spy / routing 으로 감싸져 있어도 unwrap 되면 사용) backpressure 없이 진행
+    private HikariPoolMXBean pool() {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            }
+        } catch (SQLException e) {
+            log.debug("member import could not unwrap connection pool", e);
+        }
+        return null;
+    }
+
+    private MemberImportLine parse(long lineNumber, String line, MemberImportReport.ChunkReport report) {
+        MemberImportLine parsed;
+        try {
+            parsed = objectMapper.readValue(line, MemberImportLine.class);
+        } catch (JsonProcessingException e) {
+            report.invalid(lineNumber, "JSON 형식이 아닙니다. " + e.getOriginalMessage());
+            return null;
+        }
+        // 줄 전체가 JSON null
+        if (parsed == null) {
+            report.invalid(lineNumber, "JSON 객체가 아닙니다.");
+            return null;
+        }
+        if ("team".equals(parsed.getType())) {
+            if (!hasText(parsed.getName())) {
+                report.invalid(lineNumber, "팀 name 이 없습니다.");
+                return null;
+            }
+        } else if (parsed.getType() == null || "member".equals(parsed.getType())) {
+            if (!hasText(parsed.getUsername())) {
+                report.invalid(lineNumber, "회원 username 이 없습니다.");
+                return null;
+            }
+            if (parsed.getAge() == null || parsed.getAge() < 0) {
+                report.invalid(lineNumber, "회원 age 는 0 이상이어야 합니다.");
+                return null;
+            }
+        } else {
+            report.invalid(lineNumber, "알 수 없는 type 입니다. " + parsed.getType());
+            return null;
+        }
+        return parsed;
+    }
+
+    // 읽은 줄 chunkSize 개 (잘못된 줄 포함)
+    private final class Chunk {
+        private final MemberImportReport.ChunkReport report;
+        private final Set<String> teams = new LinkedHashSet<>();
+        private final List<MemberImportLine> members = new ArrayList<>();
+        private int lines;
+
+        private Chunk(MemberImportReport.ChunkReport report) {
+            this.report = report;
+        }
+
+        private void add(long lineNumber, String line) {
+            lines++;
+            report.line(lineNumber);
+            MemberImportLine parsed = parse(lineNumber, line, report);
+            if (parsed == null) {
+                return;
+            }
+            if ("team".equals(parsed.getType())) {
+                teams.add(parsed.getName());
+            } else {
+                members.add(parsed);
+            }
+        }
+    }
+}
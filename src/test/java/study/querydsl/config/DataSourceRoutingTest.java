@@ -0,0 +1,163 @@
+package study.querydsl.config;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// H2 메모리 DB 두 개로 primary / replica 라우팅 확인
+class DataSourceRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Nested
+    @SpringBootTest(properties = {
+            "spring.datasource.url=" + PRIMARY_URL,
+            "app.datasource.replica.url=" + REPLICA_URL,
+            "app.datasource.replica.username=sa"})
+    class Routing {
+
+        @Autowired
+        EntityManager em;
+        @Autowired
+        PlatformTransactionManager transactionManager;
+        @Autowired
+        JdbcTemplate jdbcTemplate;
+        @Autowired
+        MemberJpaRepository memberJpaRepository;
+
+        @BeforeEach
+        public void before() throws Exception {
+            // ddl-auto 는 primary 에만 적용되므로 스키마 / 데이터를 replica 로 복사 (복제 흉내)
+            jdbcTemplate.update("delete from member");
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> em.persist(new Member("member1", 10)));
+            replicate();
+        }
+
+        @Test
+        public void readOnlyTransactionUsesReplica() throws Exception {
+            assertThat(databaseName(true)).isEqualTo("ROUTING-REPLICA");
+            assertThat(databaseName(false)).isEqualTo("ROUTING-PRIMARY");
+        }
+
+        @Test
+        public void repositoryReadsFromReplica() throws Exception {
+            // 복제되지 않은 쓰기는 replica 에서 보이지 않음
+            memberJpaRepository.save(new Member("member2", 20));
+
+            List<Member> result = memberJpaRepository.findAll();
+
+            assertThat(result).extracting("username").containsExactly("member1");
+        }
+
+        @Test
+        public void readOnlySessionKeepsNoSnapshot() throws Exception {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+
+            readOnly.executeWithoutResult(status -> {
+                Member findMember = memberJpaRepository.findAll().get(0);
+                findMember.setAge(99);
+                em.flush();
+                assertThat(em.unwrap(Session.class).isReadOnly(findMember)).isTrue();
+            });
+
+            Integer age = jdbcTemplate.queryForObject("select age from member where username = 'member1'", Integer.class);
+            assertThat(age).isEqualTo(10);
+        }
+
+        private String databaseName(boolean readOnly) {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(readOnly);
+            return transactionTemplate.execute(status ->
+                    (String) em.createNativeQuery("select database()").getSingleResult());
+        }
+
+        private void replicate() throws Exception {
+            List<String> script = new ArrayList<>();
+            try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+                 Statement statement = primary.createStatement();
+                 ResultSet rs = statement.executeQuery("script")) {
+                while (rs.next()) {
+                    script.add(rs.getString(1));
+                }
+            }
+            try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+                 Statement statement = replica.createStatement()) {
+                statement.execute("drop all objects");
+                for (String sql : script) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+
+    @Nested
+    @SpringBootTest(properties = {
+            "spring.datasource.url=" + PRIMARY_URL,
+            "app.datasource.replica.url=jdbc:h2:tcp://localhost:1/~/no-replica",
+            "app.datasource.replica.username=sa",
+            "app.datasource.replica.connection-timeout=250ms"})
+    class ReplicaDown {
+
+        @Autowired
+        EntityManager em;
+        @Autowired
+        PlatformTransactionManager transactionManager;
+
+        @Test
+        public void fallbackToPrimary() throws Exception {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+
+            String database = readOnly.execute(status ->
+                    (String) em.createNativeQuery("select database()").getSingleResult());
+
+            assertThat(database).isEqualTo("ROUTING-PRIMARY");
+        }
+    }
+
+    @Nested
+    @SpringBootTest(properties = {
+            "spring.datasource.url=" + PRIMARY_URL,
+            "app.datasource.replica.url=" + REPLICA_URL,
+            "app.datasource.replica.username=sa",
+            "app.datasource.replica.lag-query=select 30",
+            "app.datasource.replica.max-lag=5s"})
+    class ReplicaLagging {
+
+        @Autowired
+        EntityManager em;
+        @Autowired
+        PlatformTransactionManager transactionManager;
+
+        @Test
+        public void fallbackToPrimary() throws Exception {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+
+            String database = readOnly.execute(status ->
+                    (String) em.createNativeQuery("select database()").getSingleResult());
+
+            assertThat(database).isEqualTo("ROUTING-PRIMARY");
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package study.querydsl.config;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.BulkChangedEvent;
+import study.querydsl.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 2차 캐시는 커밋된 데이터만 올라가므로 @Transactional 대신 TransactionTemplate 으로 트랜잭션을 나눠서 확인
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    ApplicationEventPublisher publisher;
+
+    TransactionTemplate tx;
+    Statistics statistics;
+    Long teamId;
+    Long memberId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            em.persist(new Member("member2", 20, teamA));
+            teamId = teamA.getId();
+            memberId = member1.getId();
+        });
+        emf.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void after() {
+        jdbcTemplate.update("delete from member");
+        jdbcTemplate.update("delete from team");
+        emf.getCache().evictAll();
+    }
+
+    @Test
+    public void teamEntityCache() throws Exception {
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId));
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId));
+
+        assertThat(statistics.getDomainDataRegionStatistics("team").getMissCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics("team").getHitCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void lazyTeamFromCache() throws Exception {
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId));
+        long statements = statistics.getPrepareStatementCount();
+
+        String teamName = tx.execute(status -> em.find(Member.class, memberId).getTeam().getName());
+
+        assertThat(teamName).isEqualTo("teamA");
+        // member 조회 1 번, team 은 캐시
+        assertThat(statistics.getPrepareStatementCount() - statements).isEqualTo(1);
+    }
+
+    @Test
+    public void teamMembersCollectionCache() throws Exception {
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId).getMembers().size());
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId).getMembers().size());
+
+        assertThat(statistics.getDomainDataRegionStatistics("team.members").getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void teamMembersEvictedWhenMemberMoves() throws Exception {
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId).getMembers().size());
+
+        tx.executeWithoutResult(status -> {
+            Team teamB = new Team("teamB");
+            em.persist(teamB);
+            em.find(Member.class, memberId).setTeam(teamB);
+        });
+
+        int size = tx.execute(status -> em.find(Team.class, teamId).getMembers().size());
+        assertThat(size).isEqualTo(1);
+    }
+
+    @Test
+    public void findByNameQueryCache() throws Exception {
+        teamRepository.findByName("teamA");
+        teamRepository.findByName("teamA");
+
+        assertThat(statistics.getQueryRegionStatistics("team.byName").getHitCount()).isEqualTo(1);
+
+        // team 테이블이 바뀌면 캐시된 결과는 사용하지 않음
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId).setName("teamZ"));
+
+        assertThat(teamRepository.findByName("teamA")).isEmpty();
+        assertThat(teamRepository.findByName("teamZ")).isPresent();
+    }
+
+    @Test
+    public void bulkChangeEvictsTeamRegions() throws Exception {
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId).getMembers().size());
+        assertThat(emf.getCache().contains(Team.class, teamId)).isTrue();
+
+        publisher.publishEvent(new BulkChangedEvent("team"));
+
+        assertThat(emf.getCache().contains(Team.class, teamId)).isFalse();
+    }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkDmlStatementInspectorTest {
+
+    List<Object> events = new ArrayList<>();
+    BulkDmlStatementInspector inspector = new BulkDmlStatementInspector(events::add);
+
+    @Test
+    public void entityDmlIsNotBulk() throws Exception {
+        inspector.inspect("/* insert study.querydsl.entity.Member */ insert into member (age, team_id, username, member_id) values (?, ?, ?, ?)");
+        inspector.inspect("/* update study.querydsl.entity.Member */ update member set age=?, team_id=?, username=? where member_id=?");
+        inspector.inspect("/* delete study.querydsl.entity.Member */ delete from member where member_id=?");
+        inspector.inspect("update team set name=? where team_id=? and version=?");
+        inspector.inspect("select member0_.member_id as member_i1_1_ from member member0_");
+
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    public void bulkDml() throws Exception {
+        inspector.inspect("/* update Member member1\nset member1.age = member1.age + ?1 */ update member set age=age+?");
+        inspector.inspect("/* delete from Member member1\nwhere member1.age > ?1 */ delete from member where age>?");
+
+        assertThat(events).hasSize(2);
+        assertThat(events).extracting("table").containsExactly("member", "member");
+    }
+
+    @Test
+    public void singleEqualityOnNonKeyColumnIsBulk() throws Exception {
+        inspector.inspect("/* update Member member1\nset member1.age = ?1\nwhere member1.username = ?2 */ update member set age=? where username=?");
+        inspector.inspect("/* delete from Member member1\nwhere member1.team.id = ?1 */ delete from member where team_id=?");
+        inspector.inspect("update member set age=? where member_id=? and username=?");
+
+        assertThat(events).hasSize(3);
+        assertThat(events).extracting("table").containsExactly("member", "member", "member");
+    }
+
+    @Test
+    public void registeredKeyColumns() throws Exception {
+        inspector.register("users_entity", "user_id", "version");
+
+        inspector.inspect("update users_entity set user_name=? where user_id=? and version=?");
+        inspector.inspect("delete from users_entity where user_id=?");
+        assertThat(events).isEmpty();
+
+        // 등록된 pk 가 있으면 id / <table>_id 규칙은 쓰지 않음
+        inspector.inspect("delete from users_entity where users_entity_id=?");
+        assertThat(events).extracting("table").containsExactly("users_entity");
+    }
+}
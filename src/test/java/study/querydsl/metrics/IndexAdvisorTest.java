@@ -0,0 +1,98 @@
+package study.querydsl.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 인덱스 DDL 은 H2 에서 트랜잭션을 커밋하므로 @Transactional 없이, 만든 인덱스는 끝나고 지움
+@SpringBootTest
+class IndexAdvisorTest {
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    QueryMetricsListener queryMetrics;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    IndexAdvisor indexAdvisor;
+
+    List<String> created = new ArrayList<>();
+
+    @AfterEach
+    public void dropCreatedIndexes() {
+        for (String ddl : created) {
+            String name = ddl.split(" ")[5];
+            jdbcTemplate.execute("drop index if exists " + name);
+        }
+    }
+
+    @Test
+    public void proposesIndexesForScannedShapes() throws Exception {
+        MemberSearchCondition byUsername = new MemberSearchCondition();
+        byUsername.setUserName("advisor");
+        memberJpaRepository.searchByDinamicQuery(byUsername);
+        MemberSearchCondition byTeamAndAge = new MemberSearchCondition();
+        byTeamAndAge.setTeamName("advisorTeam");
+        byTeamAndAge.setAgeGoe(20);
+        memberJpaRepository.searchByDinamicQuery(byTeamAndAge);
+
+        List<IndexAdvice> advice = indexAdvisor.advise();
+
+        // use_sql_comments 주석의 물음표 때문에 값이 밀려 채워지지 않음
+        assertThat(queryMetrics.samples().values())
+                .noneMatch(sql -> sql.contains("/*"))
+                .noneMatch(sql -> sql.contains("=NULL"));
+        assertThat(advice).anySatisfy(a -> {
+            assertThat(a.getFullScans()).contains("MEMBER");
+            assertThat(a.getProposals()).contains("create index if not exists idx_member_username on member (username)");
+        });
+        // team 은 member 에서 PK 로 찾아 들어가므로, 팀 조건이 있는 team 과의 조인 컬럼 + 나이 범위로 member 인덱스
+        assertThat(advice).anySatisfy(a ->
+                assertThat(a.getProposals()).contains("create index if not exists idx_member_team_id_age on member (team_id, age)"));
+    }
+
+    @Test
+    public void endpointRefusesToApplyInReportMode() throws Exception {
+        MemberSearchCondition byUsername = new MemberSearchCondition();
+        byUsername.setUserName("advisor");
+        memberJpaRepository.searchByDinamicQuery(byUsername);
+        IndexAdvisorEndpoint endpoint = new IndexAdvisorEndpoint(
+                new IndexAdvisor(queryMetrics, jdbcTemplate, IndexAdvisor.Mode.REPORT));
+
+        assertThatThrownBy(endpoint::apply).isInstanceOf(InvalidEndpointRequestException.class);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from information_schema.indexes"
+                + " where index_name = 'IDX_MEMBER_USERNAME'", Long.class)).isZero();
+    }
+
+    @Test
+    public void verifyFailsWhenIndexedShapeScansAgain() throws Exception {
+        MemberSearchCondition byUsername = new MemberSearchCondition();
+        byUsername.setUserName("advisor");
+        memberJpaRepository.searchByDinamicQuery(byUsername);
+        IndexAdvisor verifying = new IndexAdvisor(queryMetrics, jdbcTemplate, IndexAdvisor.Mode.VERIFY);
+
+        created.addAll(verifying.apply());
+        assertThat(created).contains("create index if not exists idx_member_username on member (username)");
+        // 인덱스로 실행되는 모양으로 기억
+        assertThat(verifying.advise()).noneSatisfy(a ->
+                assertThat(a.getProposals()).contains("create index if not exists idx_member_username on member (username)"));
+
+        jdbcTemplate.execute("drop index idx_member_username");
+
+        assertThatThrownBy(verifying::advise)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("MEMBER");
+    }
+}
@@ -0,0 +1,89 @@
+package study.querydsl.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class QueryMetricsListenerTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    QueryMetricsEndpoint queryMetricsEndpoint;
+    @Autowired
+    MockMvc mockMvc;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("metricsTeam");
+        em.persist(teamA);
+        for (int i = 0; i < 3; i++) {
+            em.persist(new Member("metrics" + i, 10 + i, teamA));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void recordsPerRepositoryMethodAndShape() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("metricsTeam");
+        memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+
+        Collection<Timer> timers = meterRegistry.find("db.query")
+                .tag("endpoint", QueryContext.NONE)
+                .tag("repository", "MemberRepository.searchPageComplex")
+                .tag("statement", "select")
+                .timers();
+        // content + count
+        assertThat(timers).hasSizeGreaterThanOrEqualTo(2);
+
+        List<QueryStats> stats = queryMetricsEndpoint.queries(QueryContext.NONE);
+        assertThat(stats)
+                .filteredOn(s -> s.getRepository().equals("MemberRepository.searchPageComplex"))
+                .anySatisfy(s -> {
+                    assertThat(s.getSql()).contains("limit");
+                    assertThat(s.getRowsMax()).isEqualTo(2);
+                });
+        // 실행 후에는 컨텍스트가 비워짐
+        assertThat(QueryContext.repositoryMethod()).isEqualTo(QueryContext.NONE);
+    }
+
+    @Test
+    public void recordsPerEndpoint() throws Exception {
+        mockMvc.perform(get("/v2/members").param("teamName", "metricsTeam"))
+                .andExpect(status().isOk());
+
+        assertThat(meterRegistry.find("db.query")
+                .tag("endpoint", "/v2/members")
+                .tag("repository", "MemberRepository.searchPageSimple")
+                .timers()).isNotEmpty();
+        assertThat(QueryContext.endpoint()).isEqualTo(QueryContext.NONE);
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlShapeTest {
+
+    @Test
+    public void literalsAndInListsCollapse() throws Exception {
+        assertThat(SqlShape.normalize("select m.id from member m where m.id in (?, ?, ?) and m.age >= 20"))
+                .isEqualTo("select m.id from member m where m.id in (?...) and m.age >= ?");
+        assertThat(SqlShape.normalize("select m.id from member m where m.id in (?) and m.age >= 30"))
+                .isEqualTo("select m.id from member m where m.id in (?) and m.age >= ?");
+        assertThat(SqlShape.normalize("select *\n  from   team t where t.name = 'it''s'"))
+                .isEqualTo("select * from team t where t.name = ?");
+        assertThat(SqlShape.normalize("/* select m from Member m where m.age > 10 */ select m.id from member m where m.age>?"))
+                .isEqualTo("select m.id from member m where m.age>?");
+        // 식별자 안의 숫자는 그대로
+        assertThat(SqlShape.normalize("select member0_.id from member member0_ limit ?"))
+                .isEqualTo("select member0_.id from member member0_ limit ?");
+    }
+
+    @Test
+    public void statement() throws Exception {
+        assertThat(SqlShape.of("select 1").getStatement()).isEqualTo("select");
+        assertThat(SqlShape.of("insert into member values (?...)").getStatement()).isEqualTo("insert");
+        assertThat(SqlShape.of("UPDATE member set age = ?").getStatement()).isEqualTo("update");
+        assertThat(SqlShape.of("call next value for member_seq").getStatement()).isEqualTo("other");
+    }
+}
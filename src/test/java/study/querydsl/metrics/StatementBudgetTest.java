@@ -0,0 +1,34 @@
+package study.querydsl.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest(properties = {
+        "app.statement-budget.max-statements=1",
+        "app.statement-budget.action=reject"
+})
+@AutoConfigureMockMvc
+@Transactional
+class StatementBudgetTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void rejectsRequestOverBudget() throws Exception {
+        // /v2/members 는 content + count 두 개
+        assertThatThrownBy(() -> mockMvc.perform(get("/v2/members")))
+                .hasRootCauseInstanceOf(StatementBudgetExceededException.class);
+
+        // 요청이 끝나면 스레드의 카운터는 정리됨
+        assertThat(QueryContext.counter()).isNull();
+    }
+}
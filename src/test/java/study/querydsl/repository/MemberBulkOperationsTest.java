@@ -0,0 +1,95 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.event.BulkChangedEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 청크마다 커밋되는지 보기 위해 테스트 트랜잭션 없이 실행하고 끝나면 직접 지움
+@SpringBootTest
+@RecordApplicationEvents
+class MemberBulkOperationsTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    BulkProperties bulkProperties;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    ApplicationEvents events;
+    @Autowired
+    ApplicationEventPublisher publisher;
+
+    @BeforeEach
+    public void before() {
+        // 다른 테스트의 영속성 컨텍스트 / id 블록에 영향이 없도록 JDBC 로 넣음 (MemberSeeder 와 같이 벌크 변경으로 알림)
+        jdbcTemplate.update("insert into team (team_id, name) values (next value for team_seq, 'bulk-team')");
+        for (int i = 1; i <= 5; i++) {
+            jdbcTemplate.update("insert into member (member_id, username, age, team_id)"
+                    + " select next value for member_seq, ?, ?, team_id from team where name = 'bulk-team'", "bulk-m" + i, i * 10);
+        }
+        publisher.publishEvent(new BulkChangedEvent("team"));
+        publisher.publishEvent(new BulkChangedEvent("member"));
+        events.clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        // 벌크 삭제로 지워서 읽기 모델(집계, 스냅샷, 캐시)도 같이 맞춤
+        memberRepository.bulkDelete(condition(), null);
+        jdbcTemplate.update("delete from team where name = 'bulk-team'");
+        publisher.publishEvent(new BulkChangedEvent("team"));
+    }
+
+    @Test
+    public void chunksCommitOneByOne() throws Exception {
+        List<Long> committedRows = new ArrayList<>();
+        List<Long> publishedEvents = new ArrayList<>();
+        List<Long> finishedAt = new ArrayList<>();
+        BulkOptions options = bulkProperties.options();
+        options.setChunkSize(2);
+        options.setPause(Duration.ofMillis(100));
+        options.setProgress(progress -> {
+            finishedAt.add(System.nanoTime());
+            // 다른 커넥션에서 보이면 이미 커밋된 청크
+            committedRows.add(jdbcTemplate.queryForObject(
+                    "select count(*) from member where username like 'bulk-m%' and mod(age, 10) = 1", Long.class));
+            publishedEvents.add(events.stream(BulkChangedEvent.class).filter(e -> "member".equals(e.getTable())).count());
+        });
+
+        BulkReport report = memberRepository.bulkAddAge(condition(), 1, options);
+
+        assertThat(report.getRows()).isEqualTo(5);
+        assertThat(report.getChunks()).isEqualTo(3);
+        assertThat(report.isCompleted()).isTrue();
+        assertThat(committedRows).containsExactly(2L, 4L, 5L);
+        // 청크마다 벌크 update 한 번 -> 이벤트 한 번
+        assertThat(publishedEvents).containsExactly(1L, 2L, 3L);
+        // 청크 사이에 pause 만큼 쉼
+        for (int i = 1; i < finishedAt.size(); i++) {
+            assertThat(Duration.ofNanos(finishedAt.get(i) - finishedAt.get(i - 1))).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+        }
+        assertThat(jdbcTemplate.queryForList("select age from member where username like 'bulk-m%' order by age", Integer.class))
+                .containsExactly(11, 21, 31, 41, 51);
+    }
+
+    private static MemberSearchCondition condition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("bulk-team");
+        return condition;
+    }
+}
@@ -0,0 +1,117 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.event.BulkChangedEvent;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.event.MemberState;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberCountCacheTest {
+
+    SimpleMeterRegistry meterRegistry;
+    MemberCountCache countCache;
+    AtomicInteger loads;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        countCache = new MemberCountCache(Duration.ofMinutes(1), 100, meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void normalizedConditionHit() throws Exception {
+        MemberSearchCondition condition = condition("teamA", 20);
+        MemberSearchCondition blankUserName = condition("teamA", 20);
+        blankUserName.setUserName("");
+
+        assertThat(countCache.get(condition, this::load)).isEqualTo(2);
+        assertThat(countCache.get(blankUserName, this::load)).isEqualTo(2);
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("member.count.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void memberChangeEvictsOnlyMatchingConditions() throws Exception {
+        MemberSearchCondition teamA = condition("teamA", null);
+        MemberSearchCondition teamB = condition("teamB", null);
+        countCache.get(teamA, this::load);
+        countCache.get(teamB, this::load);
+
+        countCache.onMemberChangeCommitted(new MemberChangedEvent(1L, null, new MemberState("member5", 50, 1L, "teamA"), false));
+
+        countCache.get(teamA, this::load);
+        countCache.get(teamB, this::load);
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void bulkChangeEvictsAll() throws Exception {
+        countCache.get(condition("teamA", null), this::load);
+        countCache.onBulkChangeCommitted(new BulkChangedEvent("member"));
+        countCache.get(condition("teamA", null), this::load);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void concurrentCountsCollapse() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Long> first = executor.submit(() -> countCache.get(condition("teamA", null), () -> {
+                started.countDown();
+                await(release);
+                return load();
+            }));
+            started.await(1, TimeUnit.SECONDS);
+            Future<Long> second = executor.submit(() -> countCache.get(condition("teamA", null), this::load));
+
+            // 두 번째 요청이 진행 중인 count 에 합류할 때까지 대기
+            while (meterRegistry.get("member.count.cache.requests").tag("result", "collapsed").counter().count() < 1) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo(2);
+            assertThat(second.get(1, TimeUnit.SECONDS)).isEqualTo(2);
+            assertThat(loads.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long load() {
+        loads.incrementAndGet();
+        return 2;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static MemberSearchCondition condition(String teamName, Integer ageGoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        return condition;
+    }
+}
@@ -0,0 +1,118 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.EstimatedPage;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.event.MemberState;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberCountEstimatorTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberCountEstimator estimator;
+    @Autowired
+    TeamAgeHistogram histogram;
+
+    Team team;
+
+    @BeforeEach
+    public void before() throws Exception {
+        // 기동 시 비동기로 만드는 집계가 끝날 때까지
+        for (int i = 0; i < 100 && !histogram.isReady(); i++) {
+            Thread.sleep(50);
+        }
+        team = new Team("estimateTeam");
+        em.persist(team);
+        // 10 ~ 59 세 한 명씩
+        for (int age = 10; age < 60; age++) {
+            em.persist(new Member("estimate" + age, age, team));
+        }
+        em.flush();
+        em.clear();
+        // 같은 트랜잭션에서 다시 집계 -> 아직 커밋 안 된 위 회원도 보임
+        histogram.rebuild();
+    }
+
+    @Test
+    public void ageRangeIsExact() throws Exception {
+        MemberCountEstimator.Estimate estimate = estimator.estimate(condition(15, 34));
+
+        // 다시 집계한 뒤 변경이 없음 -> 스캔한 그대로
+        assertThat(estimate.getTotal()).isEqualTo(20);
+        assertThat(estimate.getErrorBound()).isZero();
+        assertThat(estimate.isExact()).isTrue();
+        assertThat(estimator.estimate(condition(55, null)).getTotal()).isEqualTo(5);
+        assertThat(estimator.estimate(condition(40, 30)).getTotal()).isZero();
+    }
+
+    @Test
+    public void userNameIsNotEstimated() throws Exception {
+        MemberSearchCondition condition = condition(null, null);
+        condition.setUserName("estimate10");
+
+        assertThat(estimator.estimate(condition)).isNull();
+    }
+
+    @Test
+    public void committedChangesAreApplied() throws Exception {
+        histogram.onMemberChangeCommitted(new MemberChangedEvent(-1L, null,
+                new MemberState("estimateNew", 25, team.getId(), "estimateTeam"), false));
+        histogram.onMemberChangeCommitted(new MemberChangedEvent(-2L,
+                new MemberState("estimate10", 10, team.getId(), "estimateTeam"), null, false));
+
+        assertThat(estimator.estimate(condition(20, 29)).getTotal()).isEqualTo(11);
+        assertThat(estimator.estimate(condition(10, 19)).getTotal()).isEqualTo(9);
+        // 다시 집계한 뒤 반영한 변경 수만큼 오차 범위
+        assertThat(estimator.estimate(condition(10, 19)).getErrorBound()).isEqualTo(2);
+    }
+
+    @Test
+    public void searchPageEstimated() throws Exception {
+        // 다시 집계한 뒤 변경이 없음 -> 정확한 값
+        EstimatedPage<MemberTeamDTO> first = memberRepository.searchPageEstimated(condition(15, 34), PageRequest.of(0, 5));
+        assertThat(first.isEstimated()).isFalse();
+        assertThat(first.getTotalElements()).isEqualTo(20);
+        assertThat(first.getTotalErrorBound()).isZero();
+        assertThat(first.getContent()).hasSize(5);
+
+        // 커밋된 변경을 반영한 뒤 -> 추정치 + 반영한 변경 수만큼 오차 범위
+        histogram.onMemberChangeCommitted(new MemberChangedEvent(-1L, null,
+                new MemberState("estimateNew", 25, team.getId(), "estimateTeam"), false));
+        EstimatedPage<MemberTeamDTO> changed = memberRepository.searchPageEstimated(condition(15, 34), PageRequest.of(0, 5));
+        assertThat(changed.isEstimated()).isTrue();
+        assertThat(changed.getTotalElements()).isEqualTo(21);
+        assertThat(changed.getTotalErrorBound()).isEqualTo(1);
+
+        // 마지막 페이지 -> content 로 정확히 알 수 있음
+        EstimatedPage<MemberTeamDTO> last = memberRepository.searchPageEstimated(condition(15, 34), PageRequest.of(3, 6));
+        assertThat(last.isEstimated()).isFalse();
+        assertThat(last.getTotalElements()).isEqualTo(20);
+        assertThat(last.getTotalErrorBound()).isZero();
+    }
+
+    private static MemberSearchCondition condition(Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("estimateTeam");
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
@@ -117,4 +117,22 @@ class MemberJpaRepositoryTest {
 
 
     }
+
+    @Test
+    public void queryRegistryShapesTest() throws Exception {
+        setData();
+
+        // 4개 조건의 모든 조합(16가지 shape)이 BooleanBuilder 로 매번 만든 쿼리와 같은 결과
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUserName((shape & 1) != 0 ? "member3" : null);
+            condition.setTeamName((shape & 2) != 0 ? "teamB" : null);
+            condition.setAgeGoe((shape & 4) != 0 ? 20 : null);
+            condition.setAgeLoe((shape & 8) != 0 ? 30 : null);
+
+            assertThat(memberJpaRepository.searchByDinamicQuery(condition))
+                    .as("shape %d", shape)
+                    .isEqualTo(memberJpaRepository.searchByBuilder(condition));
+        }
+    }
 }
\ No newline at end of file
@@ -7,15 +7,21 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.CursorSlice;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDTO;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.metrics.StatementCounter;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @Transactional
@@ -27,6 +33,8 @@ public class MemberRepositoryTest {
     JPAQueryFactory queryFactory;
     @Autowired
     MemberRepository memberRepository;
+    @Autowired
+    BulkProperties bulkProperties;
 
     @Test
     public void basicTest() throws Exception {
@@ -108,6 +116,203 @@ public class MemberRepositoryTest {
 
     }
 
+    @Test
+    public void respositoryQueryDSLPageOffsetOverflow() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        // int 를 넘는 offset 은 잘라서 다른 페이지를 주지 않고 거절
+        assertThatThrownBy(() -> memberRepository.searchPageComplex(condition, PageRequest.of(Integer.MAX_VALUE / 2, 3)))
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void respositoryQueryDSLCursorSlice() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamB : teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        CursorSlice<MemberTeamDTO> first = memberRepository.searchSlice(condition, null, 2);
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member3");
+        assertThat(first.isHasNext()).isTrue();
+
+        CursorSlice<MemberTeamDTO> second = memberRepository.searchSlice(condition, first.getNextCursor(), 2);
+        assertThat(second.getContent()).extracting("username").containsExactly("member5");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+
+        // size 는 member.slice.max-size 로 줄어듦 (size + 1 overflow 없음)
+        CursorSlice<MemberTeamDTO> all = memberRepository.searchSlice(condition, null, Integer.MAX_VALUE);
+        assertThat(all.getContent()).extracting("username").containsExactly("member1", "member3", "member5");
+        assertThat(all.getSize()).isEqualTo(1000);
+    }
+
+    @Test
+    public void respositoryQueryDSLStream() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 1; i <= 3; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        try (Stream<MemberTeamDTO> stream = memberRepository.searchStream(condition, 2)) {
+            List<String> usernames = stream.map(MemberTeamDTO::getUsername).collect(Collectors.toList());
+            assertThat(usernames).containsExactly("member2", "member3");
+        }
+    }
+
+    @Test
+    public void respositoryQueryDSLDeferredJoinPage() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 1; i <= 6; i++) {
+            em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamB : teamA));
+        }
+        em.persist(new Member("noTeam", 70));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(1, 2);
+
+        Page<MemberTeamDTO> offset = memberRepository.searchPage(condition, pageRequest, MemberPagingStrategy.OFFSET);
+        Page<MemberTeamDTO> deferred = memberRepository.searchPage(condition, pageRequest, MemberPagingStrategy.DEFERRED_JOIN);
+
+        assertThat(deferred.getContent()).extracting("username").containsExactly("member3", "member4");
+        assertThat(deferred.getContent()).isEqualTo(offset.getContent());
+
+        condition.setTeamName("teamB");
+        Page<MemberTeamDTO> teamBPage = memberRepository.searchPage(condition, PageRequest.of(0, 2), MemberPagingStrategy.DEFERRED_JOIN);
+        assertThat(teamBPage.getContent()).extracting("username").containsExactly("member2", "member4");
+        assertThat(teamBPage.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    public void pageQueriesStatementCount() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 1; i <= 6; i++) {
+            em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamB : teamA));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
 
+        // content + count
+        try (StatementCounter statements = StatementCounter.start()) {
+            memberRepository.searchPageComplex(condition, PageRequest.of(0, 3));
+            statements.assertAtMost(2).assertNoRepeats();
+        }
+        // id 조회 + content + count
+        try (StatementCounter statements = StatementCounter.start()) {
+            memberRepository.searchPage(condition, PageRequest.of(0, 3), MemberPagingStrategy.DEFERRED_JOIN);
+            statements.assertAtMost(3).assertNoRepeats();
+        }
+    }
+
+    @Test
+    public void lazyTeamLoadingIsBatched() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, i * 10, team));
+        }
+        em.flush();
+        em.clear();
+
+        // default_batch_fetch_size 로 팀은 in 쿼리 한 번 -> 같은 SQL 반복 없음
+        try (StatementCounter statements = StatementCounter.start()) {
+            List<Member> members = memberRepository.findAll();
+            members.forEach(m -> m.getTeam().getName());
+            statements.assertNoRepeats();
+        }
+    }
+
+    @Test
+    public void loopQueryIsDetected() throws Exception {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, i * 10, team));
+            teams.add(team);
+        }
+        em.flush();
+        em.clear();
+
+        try (StatementCounter statements = StatementCounter.start()) {
+            for (Team team : teams) {
+                memberRepository.findByUsername("member" + team.getName().substring(4));
+            }
+            assertThat(statements.getMaxRepeats()).isEqualTo(3);
+            assertThatThrownBy(statements::assertNoRepeats)
+                    .isInstanceOf(AssertionError.class)
+                    .hasMessageContaining("N+1");
+        }
+    }
 
+    @Test
+    public void bulkAddAgeInChunks() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        List<Member> members = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            Member member = new Member("member" + i, i * 10, i <= 3 ? teamA : teamB);
+            em.persist(member);
+            members.add(member);
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        List<BulkReport> progress = new ArrayList<>();
+        BulkOptions options = bulkProperties.options();
+        options.setChunkSize(2);
+        options.setProgress(progress::add);
+
+        // flush / clear 없이 벌크 -> 영속성 컨텍스트의 회원은 떼어내서 다시 조회하면 바뀐 값
+        BulkReport report = memberRepository.bulkAddAge(condition, 1, options);
+
+        assertThat(report.getRows()).isEqualTo(3);
+        assertThat(report.getChunks()).isEqualTo(2);
+        assertThat(report.isCompleted()).isTrue();
+        assertThat(progress).extracting(BulkReport::getRows).containsExactly(2L, 3L);
+        assertThat(em.contains(members.get(0))).isFalse();
+        assertThat(memberRepository.findById(members.get(0).getId()).get().getAge()).isEqualTo(11);
+        assertThat(memberRepository.findById(members.get(2).getId()).get().getAge()).isEqualTo(31);
+        assertThat(memberRepository.findById(members.get(3).getId()).get().getAge()).isEqualTo(40);
+
+        BulkReport deleted = memberRepository.bulkDelete(condition, options);
+        assertThat(deleted.getRows()).isEqualTo(3);
+        assertThat(memberRepository.findAll()).hasSize(2);
+    }
+
+    @Test
+    public void searchPageSimpleCountsLikeContent() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        // 팀 없는 회원은 content(inner join)에 없으므로 전체 건수에도 없어야 함
+        em.persist(new Member("member3", 30));
+
+        Page<MemberTeamDTO> result = memberRepository.searchPageSimple(new MemberSearchCondition(), PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2");
+        assertThat(result.getTotalElements()).isEqualTo(result.getContent().size());
+    }
 }
@@ -0,0 +1,132 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.event.BulkChangedEvent;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.event.MemberState;
+import study.querydsl.event.TeamChangedEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberSearchCacheTest {
+
+    SimpleMeterRegistry meterRegistry;
+    MemberSearchCache searchCache;
+    AtomicInteger loads;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        searchCache = new MemberSearchCache(true, 10, Duration.ofMinutes(1), meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void samePageHits() throws Exception {
+        MemberSearchCondition blankUserName = condition("teamA", null);
+        blankUserName.setUserName("");
+
+        page(condition("teamA", null), 0);
+        page(blankUserName, 0);
+        page(condition("teamA", null), 1);
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(meterRegistry.get("member.search.cache.hit.ratio").gauge().value()).isEqualTo(1.0 / 3);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedByWeight() throws Exception {
+        // 한 페이지에 DTO 3 건 -> max-weight 10 이면 3 페이지까지
+        page(condition("teamA", null), 0);
+        page(condition("teamA", null), 1);
+        page(condition("teamA", null), 2);
+        page(condition("teamA", null), 0);
+        page(condition("teamA", null), 3);
+
+        assertThat(meterRegistry.get("member.search.cache.weight").gauge().value()).isEqualTo(9);
+        page(condition("teamA", null), 0);
+        page(condition("teamA", null), 1);
+        // 0 은 최근에 써서 남고, 가장 오래 안 쓴 1 이 빠짐
+        assertThat(loads.get()).isEqualTo(5);
+    }
+
+    @Test
+    public void memberChangeEvictsOnlyMatchingConditions() throws Exception {
+        page(condition("teamA", null), 0);
+        page(condition("teamB", null), 0);
+        page(condition(null, 60), 0);
+
+        searchCache.onMemberChangeCommitted(new MemberChangedEvent(1L, null, new MemberState("member5", 50, 1L, "teamA"), false));
+
+        assertThat(meterRegistry.get("member.search.cache.invalidation.fanout").tag("cause", "member").summary().totalAmount())
+                .isEqualTo(1);
+        page(condition("teamA", null), 0);
+        page(condition("teamB", null), 0);
+        page(condition(null, 60), 0);
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void teamRenameEvictsConditionAndContent() throws Exception {
+        // teamName 조건 없이 결과에 teamA(1) 회원이 들어 있는 엔트리도 지워야 함
+        page(condition(null, null), 0);
+        page(condition("teamB", null), 0);
+        searchCache.page("complex", condition("teamC", null), PageRequest.of(0, 3),
+                () -> new PageImpl<>(load(3L, "teamC"), PageRequest.of(0, 3), 3));
+
+        searchCache.onTeamChangeCommitted(new TeamChangedEvent(1L, "teamA", "teamB"));
+
+        assertThat(meterRegistry.get("member.search.cache.invalidation.fanout").tag("cause", "team").summary().totalAmount())
+                .isEqualTo(2);
+        page(condition("teamC", null), 0);
+        page(condition("teamB", null), 0);
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void bulkChangeEvictsAll() throws Exception {
+        searchCache.list(condition("teamA", null), this::load);
+        searchCache.onBulkChangeCommitted(new BulkChangedEvent("member"));
+        searchCache.list(condition("teamA", null), this::load);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private Page<MemberTeamDTO> page(MemberSearchCondition condition, int page) {
+        return searchCache.page("complex", condition, PageRequest.of(page, 3),
+                () -> new PageImpl<>(load(), PageRequest.of(page, 3), 100));
+    }
+
+    private List<MemberTeamDTO> load() {
+        return load(1L, "teamA");
+    }
+
+    // 한 팀 회원 3 명
+    private List<MemberTeamDTO> load(Long teamId, String teamName) {
+        loads.incrementAndGet();
+        List<MemberTeamDTO> content = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            content.add(new MemberTeamDTO((long) i, "member" + i, i * 10, teamId, teamName));
+        }
+        return content;
+    }
+
+    private static MemberSearchCondition condition(String teamName, Integer ageGoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        return condition;
+    }
+}
@@ -0,0 +1,295 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.BulkChangedEvent;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.event.TeamChangedEvent;
+
+import javax.persistence.EntityManager;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"member.snapshot.enabled=true", "member.search.engine=snapshot"})
+@Transactional
+@RecordApplicationEvents
+class MemberSnapshotTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberSnapshot snapshot;
+    @Autowired
+    MemberSearchEngine searchEngine;
+    @Autowired
+    SnapshotMemberSearchEngine snapshotEngine;
+    @Autowired
+    MemberSearchQueryRegistry queryRegistry;
+    @Autowired
+    ApplicationEvents events;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    Team teamA;
+    Team teamB;
+    Member member1;
+    Member member3;
+
+    @BeforeEach
+    public void before() throws Exception {
+        // 기동 시 비동기로 만드는 스냅샷이 끝날 때까지
+        for (int i = 0; i < 100 && !snapshot.isReady(); i++) {
+            Thread.sleep(50);
+        }
+        teamA = new Team("snapA");
+        teamB = new Team("snapB");
+        em.persist(teamA);
+        em.persist(teamB);
+        member1 = new Member("snap1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("snap2", 20, teamA));
+        member3 = new Member("snap3", 30, teamB);
+        em.persist(member3);
+        em.persist(new Member("snap4", 40, teamB));
+        // 다른 팀의 같은 이름, 팀 없는 회원 (content 는 inner join, count 는 left join)
+        em.persist(new Member("snap3", 35, teamA));
+        em.persist(new Member("snap5", 50));
+        em.flush();
+        em.clear();
+        // 같은 트랜잭션에서 다시 만듦 -> 아직 커밋 안 된 위 회원도 보임
+        snapshot.rebuild();
+        events.clear();
+    }
+
+    @Test
+    public void selectedEngine() throws Exception {
+        assertThat(searchEngine).isSameAs(snapshotEngine);
+    }
+
+    @Test
+    public void sameResultAsJpaForAllShapes() throws Exception {
+        assertSameAsJpa();
+    }
+
+    @Test
+    public void unknownValuesMatchNothing() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("noSuchTeam");
+
+        assertThat(snapshot.search(condition, 0, -1)).isEmpty();
+        assertThat(snapshot.count(condition)).isZero();
+    }
+
+    @Test
+    public void committedChangesAreApplied() throws Exception {
+        Member moved = em.find(Member.class, member1.getId());
+        moved.changeTeam(em.find(Team.class, teamB.getId()));
+        moved.setAge(45);
+        em.remove(em.find(Member.class, member3.getId()));
+        em.persist(new Member("snap6", 60, em.find(Team.class, teamA.getId())));
+        em.find(Team.class, teamB.getId()).setName("snapC");
+        em.flush();
+        em.clear();
+
+        // 커밋 뒤에 오는 이벤트를 그대로 다시 보냄
+        events.stream(MemberChangedEvent.class).forEach(snapshot::onMemberChangeCommitted);
+        events.stream(TeamChangedEvent.class).forEach(snapshot::onTeamChangeCommitted);
+
+        assertSameAsJpa();
+        MemberSearchCondition renamed = new MemberSearchCondition();
+        renamed.setTeamName("snapC");
+        assertThat(snapshot.search(renamed, 0, -1)).extracting("username").containsExactly("snap1", "snap4");
+    }
+
+    @Test
+    public void outOfOrderIdsKeepIdOrder() throws Exception {
+        MemberSnapshot.Columns columns = new MemberSnapshot.Columns(10);
+        columns.renameTeam(1L, "orderTeam");
+        for (long id = 100; id <= 300; id += 100) {
+            columns.append(id, "order" + id, (int) (id / 10), 1L);
+        }
+        // 다른 노드가 먼저 할당받은 블록 -> 끝에 붙지만 결과는 member_id 순
+        columns.upsert(150, "order150", 15, 1L, "orderTeam");
+        columns.upsert(50, "order50", 5, 1L, "orderTeam");
+        columns.upsert(400, "order400", 40, 1L, "orderTeam");
+        columns.upsert(150, "order150", 16, 1L, "orderTeam");
+        columns.remove(200);
+
+        MemberSearchCondition all = new MemberSearchCondition();
+        assertThat(columns.search(all, 0, -1)).extracting("memberId").containsExactly(50L, 100L, 150L, 300L, 400L);
+        assertThat(columns.search(all, 1, 2)).extracting("memberId").containsExactly(100L, 150L);
+        assertThat(columns.search(all, 0, -1)).extracting("age").containsExactly(5, 10, 16, 30, 40);
+        assertThat(columns.count(all, false)).isEqualTo(5);
+
+        // 제자리가 아닌 행이 많아지면 member_id 순으로 다시 채움
+        columns.upsert(10_000, "order10000", 1, 1L, "orderTeam");
+        for (long id = 2099; id >= 1000; id--) {
+            columns.upsert(id, "order" + id, 1, 1L, "orderTeam");
+        }
+        List<MemberTeamDTO> result = columns.search(all, 0, -1);
+        assertThat(result).hasSize(1106);
+        assertThat(result).extracting(MemberTeamDTO::getMemberId).isSorted();
+    }
+
+    @Test
+    public void restoresSavedSnapshotAndJournal(@TempDir Path directory) throws Exception {
+        MemberSnapshot saved = persistent(directory);
+        saved.restore();
+        // 다시 만든 뒤 저장 -> 그 뒤의 변경은 저널에
+        saved.rebuild();
+        em.find(Member.class, member1.getId()).setAge(15);
+        em.remove(em.find(Member.class, member3.getId()));
+        em.find(Team.class, teamB.getId()).setName("snapC");
+        em.flush();
+        em.clear();
+        events.stream(MemberChangedEvent.class).forEach(saved::onMemberChangeCommitted);
+        events.stream(TeamChangedEvent.class).forEach(saved::onTeamChangeCommitted);
+
+        MemberSnapshot reopened = persistent(directory);
+        reopened.restore();
+
+        assertThat(reopened.isReady()).isTrue();
+        assertSameAsJpa(reopened);
+        saved.shutdown();
+        reopened.shutdown();
+    }
+
+    @Test
+    public void corruptSnapshotIsIgnored(@TempDir Path directory) throws Exception {
+        MemberSnapshot saved = persistent(directory);
+        saved.rebuild();
+        saved.shutdown();
+        Path file = directory.resolve("member.snapshot");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+
+        MemberSnapshot reopened = persistent(directory);
+        reopened.restore();
+
+        // onApplicationReady 에서 DB 로 다시 만듦
+        assertThat(reopened.isReady()).isFalse();
+        assertThat(file).doesNotExist();
+        reopened.shutdown();
+    }
+
+    @Test
+    public void snapshotBehindDatabaseIsIgnored(@TempDir Path directory) throws Exception {
+        MemberSnapshot saved = persistent(directory);
+        saved.rebuild();
+        saved.shutdown();
+        // 저널을 거치지 않은 변경 (꺼져 있던 동안 다른 노드에서 커밋)
+        jdbcTemplate.update("insert into member (member_id, username, age, team_id) values (?, 'snap8', 80, ?)",
+                jdbcTemplate.queryForObject("select max(member_id) + 1 from member", Long.class), teamA.getId());
+
+        MemberSnapshot reopened = persistent(directory);
+        reopened.restore();
+
+        assertThat(reopened.isReady()).isFalse();
+        assertThat(directory.resolve("member.snapshot")).doesNotExist();
+        reopened.shutdown();
+    }
+
+    @Test
+    public void bulkChangeDuringRebuildIsNotReady() throws Exception {
+        Thread testThread = Thread.currentThread();
+        CountDownLatch checked = new CountDownLatch(1);
+        Runnable[] duringScan = new Runnable[1];
+        MemberSnapshot rebuilt = new MemberSnapshot(new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public void query(String sql, RowCallbackHandler rch) {
+                // 다시 만드는 비동기 rebuild 는 ready 를 확인할 때까지 기다림
+                if (Thread.currentThread() != testThread) {
+                    try {
+                        checked.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.query(sql, rch);
+                if (duringScan[0] != null) {
+                    duringScan[0].run();
+                    duringScan[0] = null;
+                }
+            }
+        }, new SimpleMeterRegistry(), true, 10, Duration.ofHours(1), false, "snapshot", Duration.ofHours(1));
+        // 팀 스캔과 회원 스캔 사이에 커밋된 벌크 연산
+        duringScan[0] = () -> rebuilt.onBulkChangeCommitted(new BulkChangedEvent("member"));
+        try {
+            rebuilt.rebuild();
+
+            assertThat(rebuilt.isReady()).isFalse();
+
+            checked.countDown();
+            for (int i = 0; i < 100 && !rebuilt.isReady(); i++) {
+                Thread.sleep(50);
+            }
+            assertThat(rebuilt.isReady()).isTrue();
+        } finally {
+            checked.countDown();
+            rebuilt.shutdown();
+        }
+    }
+
+    @Test
+    public void writeTransactionFallsBackToJpa() throws Exception {
+        // 아직 스냅샷에 없는 (커밋 전) 변경이 보여야 함
+        em.persist(new Member("snap7", 70, em.find(Team.class, teamA.getId())));
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUserName("snap7");
+
+        assertThat(searchEngine.search(condition, 0, -1)).hasSize(1);
+        assertThat(snapshot.search(condition, 0, -1)).isEmpty();
+    }
+
+    private MemberSnapshot persistent(Path directory) {
+        return new MemberSnapshot(jdbcTemplate, new SimpleMeterRegistry(), true, 10, Duration.ofHours(1),
+                true, directory.toString(), Duration.ofHours(1));
+    }
+
+    private void assertSameAsJpa() {
+        assertSameAsJpa(snapshot);
+    }
+
+    private void assertSameAsJpa(MemberSnapshot snapshot) {
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUserName((shape & 1) != 0 ? "snap3" : null);
+            condition.setTeamName((shape & 2) != 0 ? "snapA" : null);
+            condition.setAgeGoe((shape & 4) != 0 ? 20 : null);
+            condition.setAgeLoe((shape & 8) != 0 ? 45 : null);
+
+            assertThat(snapshot.search(condition, 0, -1))
+                    .as("shape %d", shape)
+                    .isEqualTo(queryRegistry.search(condition, 0, -1));
+            assertThat(snapshot.search(condition, 1, 2))
+                    .as("shape %d page", shape)
+                    .isEqualTo(queryRegistry.search(condition, 1, 2));
+            assertThat(snapshot.count(condition))
+                    .as("shape %d count", shape)
+                    .isEqualTo(queryRegistry.count(condition));
+            assertThat(snapshot.countJoined(condition))
+                    .as("shape %d countJoined", shape)
+                    .isEqualTo(queryRegistry.countJoined(condition));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCountExecutorTest {
+
+    SimpleMeterRegistry meterRegistry;
+    PageCountExecutor executor;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new PageCountExecutor(new NoOpTransactionManager(), meterRegistry, true, 2, 2, Duration.ofMillis(300));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void countRunsWhileContentRuns() throws Exception {
+        CountDownLatch countStarted = new CountDownLatch(1);
+
+        // content 가 count 시작을 기다림 -> 순서대로 실행하면 여기서 멈춤
+        Page<String> page = executor.getPage(PageRequest.of(0, 2), () -> {
+            await(countStarted);
+            return Arrays.asList("a", "b");
+        }, () -> {
+            countStarted.countDown();
+            return 10;
+        });
+
+        assertThat(page.getTotalElements()).isEqualTo(10);
+        assertThat(count("used")).isEqualTo(1);
+    }
+
+    @Test
+    public void unusedCountIsCancelled() throws Exception {
+        CountDownLatch countStarted = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        // 첫 페이지가 page size 보다 작으면 count 는 필요 없음
+        Page<String> page = executor.getPage(PageRequest.of(0, 10), () -> {
+            await(countStarted);
+            return Arrays.asList("a", "b");
+        }, () -> {
+            countStarted.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return 10;
+        });
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(count("cancelled")).isEqualTo(1);
+    }
+
+    @Test
+    public void slowCountTimesOut() throws Exception {
+        assertThatThrownBy(() -> executor.getPage(PageRequest.of(0, 2), () -> Arrays.asList("a", "b"), () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 10;
+        })).isInstanceOf(QueryTimeoutException.class);
+
+        assertThat(count("timeout")).isEqualTo(1);
+    }
+
+    @Test
+    public void readWriteTransactionRunsInline() throws Exception {
+        // 쓰기 트랜잭션의 커밋 전 변경은 다른 커넥션에서 안 보이므로 같은 스레드에서 실행
+        Thread caller = Thread.currentThread();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            Page<String> page = executor.getPage(PageRequest.of(0, 2), () -> Arrays.asList("a", "b"), () -> {
+                assertThat(Thread.currentThread()).isSameAs(caller);
+                return 10;
+            });
+            assertThat(page.getTotalElements()).isEqualTo(10);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        assertThat(count("inline")).isEqualTo(1);
+    }
+
+    @Test
+    public void saturatedPoolRunsInline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch submitted = new CountDownLatch(4);
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            // count 4개로 스레드 2 + 대기열 2 를 채움
+            for (int i = 0; i < 4; i++) {
+                callers.execute(() -> executor.getPage(PageRequest.of(0, 2), () -> {
+                    submitted.countDown();
+                    await(release);
+                    return Arrays.asList("a", "b");
+                }, () -> {
+                    await(release);
+                    return 10;
+                }));
+            }
+            await(submitted);
+
+            Page<String> page = executor.getPage(PageRequest.of(0, 2), () -> Arrays.asList("a", "b"), () -> 10);
+            assertThat(page.getTotalElements()).isEqualTo(10);
+            assertThat(count("rejected")).isEqualTo(1);
+        } finally {
+            release.countDown();
+            callers.shutdown();
+        }
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("member.page.count.parallel").tag("result", result).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("timeout");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RowBitmapTest {
+
+    @Test
+    public void addRemoveAcrossContainerKinds() throws Exception {
+        RowBitmap bitmap = new RowBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        // 첫 컨테이너는 4096 개를 넘어서 bitmap 으로, 두 번째 컨테이너는 array 로
+        for (int i = 0; i < 6000; i++) {
+            bitmap.add(i * 3);
+            expected.add(i * 3);
+        }
+        bitmap.add(70_000);
+        expected.add(70_000);
+        bitmap.add(3);
+        assertThat(bitmap.cardinality()).isEqualTo(expected.size());
+
+        // 절반 아래로 지우면 다시 array
+        for (int i = 0; i < 5000; i++) {
+            bitmap.remove(i * 3);
+            expected.remove(i * 3);
+        }
+        bitmap.remove(70_000);
+        expected.remove(70_000);
+
+        assertThat(bitmap.cardinality()).isEqualTo(expected.size());
+        assertThat(bitmap.contains(15_000)).isTrue();
+        assertThat(bitmap.contains(14_997)).isFalse();
+        assertThat(rows(bitmap)).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void andOrDoNotChangeInputs() throws Exception {
+        RowBitmap multiplesOf2 = new RowBitmap();
+        RowBitmap multiplesOf3 = new RowBitmap();
+        for (int i = 0; i < 200_000; i++) {
+            if (i % 2 == 0) {
+                multiplesOf2.add(i);
+            }
+            if (i % 3 == 0 && i < 10_000) {
+                multiplesOf3.add(i);
+            }
+        }
+
+        RowBitmap and = multiplesOf2.and(multiplesOf3);
+        RowBitmap or = multiplesOf2.or(multiplesOf3);
+
+        assertThat(and.cardinality()).isEqualTo(1667);
+        assertThat(rows(and)).allMatch(row -> row % 6 == 0);
+        assertThat(or.cardinality()).isEqualTo(100_000 + 3334 - 1667);
+        assertThat(multiplesOf2.cardinality()).isEqualTo(100_000);
+        assertThat(multiplesOf3.cardinality()).isEqualTo(3334);
+
+        or.add(1);
+        assertThat(multiplesOf2.contains(1)).isFalse();
+    }
+
+    @Test
+    public void forEachStopsEarly() throws Exception {
+        RowBitmap bitmap = new RowBitmap();
+        bitmap.add(200_000);
+        bitmap.add(5);
+        bitmap.add(70_000);
+
+        List<Integer> visited = new ArrayList<>();
+        bitmap.forEach(row -> {
+            visited.add(row);
+            return visited.size() < 2;
+        });
+
+        assertThat(visited).containsExactly(5, 70_000);
+    }
+
+    private static List<Integer> rows(RowBitmap bitmap) {
+        List<Integer> rows = new ArrayList<>();
+        bitmap.forEach(rows::add);
+        return rows;
+    }
+}
@@ -0,0 +1,86 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "member.search.engine=sql")
+@Transactional
+class SqlMemberSearchEngineTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberSearchEngine searchEngine;
+    @Autowired
+    SqlMemberSearchEngine sqlEngine;
+    @Autowired
+    MemberSearchQueryRegistry queryRegistry;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        // 팀 없는 회원 (content 는 inner join, count 는 left join)
+        em.persist(new Member("member5", 50));
+    }
+
+    @Test
+    public void selectedEngine() throws Exception {
+        assertThat(searchEngine).isSameAs(sqlEngine);
+    }
+
+    @Test
+    public void sameResultAsJpaForAllShapes() throws Exception {
+        // flush 하지 않아도 SQL 경로에서 보여야 함
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUserName((shape & 1) != 0 ? "member3" : null);
+            condition.setTeamName((shape & 2) != 0 ? "teamB" : null);
+            condition.setAgeGoe((shape & 4) != 0 ? 20 : null);
+            condition.setAgeLoe((shape & 8) != 0 ? 30 : null);
+
+            assertThat(sqlEngine.search(condition, 0, -1))
+                    .as("shape %d", shape)
+                    .isEqualTo(queryRegistry.search(condition, 0, -1));
+            assertThat(sqlEngine.count(condition))
+                    .as("shape %d count", shape)
+                    .isEqualTo(queryRegistry.count(condition));
+            assertThat(sqlEngine.countJoined(condition))
+                    .as("shape %d countJoined", shape)
+                    .isEqualTo(queryRegistry.countJoined(condition));
+        }
+    }
+
+    @Test
+    public void paging() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        assertThat(sqlEngine.search(condition, 1, 2)).isEqualTo(queryRegistry.search(condition, 1, 2));
+
+        Page<MemberTeamDTO> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 3));
+        assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(result.getTotalElements()).isEqualTo(5);
+    }
+}
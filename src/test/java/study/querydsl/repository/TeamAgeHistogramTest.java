@@ -0,0 +1,92 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.event.MemberState;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+@SpringBootTest
+@Transactional
+class TeamAgeHistogramTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    public void changesCommittedDuringRebuildAreReplayed() throws Exception {
+        Team team = new Team("histogramTeam");
+        em.persist(team);
+        Member seen = new Member("histogram1", 10, team);
+        Member unseen = new Member("histogram2", 20, team);
+        em.persist(seen);
+        em.persist(unseen);
+        em.flush();
+        // 스캔 전에 커밋됐지만 이벤트는 스캔 도중에 온 변경 (10 -> 15)
+        seen.setAge(15);
+        em.flush();
+
+        Runnable[] duringScan = new Runnable[1];
+        TeamAgeHistogram histogram = new TeamAgeHistogram(new JdbcTemplate(dataSource) {
+            @Override
+            public void query(String sql, RowCallbackHandler rch) {
+                super.query(sql, rch);
+                if (duringScan[0] != null) {
+                    duringScan[0].run();
+                    duringScan[0] = null;
+                }
+            }
+        }, true, Duration.ofHours(1));
+        duringScan[0] = () -> {
+            histogram.onMemberChangeCommitted(new MemberChangedEvent(seen.getId(),
+                    new MemberState("histogram1", 10, team.getId(), "histogramTeam"),
+                    new MemberState("histogram1", 15, team.getId(), "histogramTeam"), false));
+            // 스캔 뒤에 커밋된 변경 (20 -> 30)
+            histogram.onMemberChangeCommitted(new MemberChangedEvent(unseen.getId(),
+                    new MemberState("histogram2", 20, team.getId(), "histogramTeam"),
+                    new MemberState("histogram2", 30, team.getId(), "histogramTeam"), false));
+            // 이전 상태를 모르는 변경도 마지막 상태로 맞춤
+            histogram.onMemberChangeCommitted(new MemberChangedEvent(-1L, null,
+                    new MemberState("histogram3", 40, team.getId(), "histogramTeam"), true));
+        };
+        try {
+            histogram.rebuild();
+
+            assertThat(histogram.isReady()).isTrue();
+            assertThat(ages(histogram, team.getId())).containsExactly(entry(15, 1L), entry(30, 1L), entry(40, 1L));
+        } finally {
+            histogram.shutdown();
+        }
+    }
+
+    private static Map<Integer, Long> ages(TeamAgeHistogram histogram, Long teamId) {
+        Map<Integer, Long> result = new TreeMap<>();
+        histogram.forEachTeam((id, name, ages) -> {
+            if (id.equals(teamId)) {
+                for (int age = ages.ageMin(); age <= ages.ageMax(); age++) {
+                    long count = ages.count(age, age);
+                    if (count > 0) {
+                        result.put(age, count);
+                    }
+                }
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,81 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDTO;
+import study.querydsl.dto.TeamMembersDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.metrics.StatementCounter;
+
+import javax.persistence.EntityManager;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Test
+    public void teamsWithMembers() throws Exception {
+        long before = teamRepository.count();
+        for (int i = 1; i <= 3; i++) {
+            Team team = new Team("withMembers" + i);
+            em.persist(team);
+            // 팀마다 i 명
+            for (int j = 1; j <= i; j++) {
+                em.persist(new Member("member" + i + "_" + j, j * 10, team));
+            }
+        }
+        em.flush();
+        em.clear();
+
+        Page<TeamMembersDTO> page;
+        try (StatementCounter statements = StatementCounter.start()) {
+            page = teamRepository.searchTeamsWithMembers(PageRequest.of(0, (int) before + 10));
+            // 팀 + 회원 (마지막 페이지라 count 는 생략), 팀 / 회원 수와 무관
+            statements.assertAtMost(2);
+        }
+
+        assertThat(page.getTotalElements()).isEqualTo(before + 3);
+        Map<String, TeamMembersDTO> byName = page.getContent().stream()
+                .collect(Collectors.toMap(TeamMembersDTO::getTeamName, Function.identity()));
+        assertThat(byName.get("withMembers1").getMembers()).extracting(MemberDTO::getUsername)
+                .containsExactly("member1_1");
+        assertThat(byName.get("withMembers3").getMembers()).extracting(MemberDTO::getUsername)
+                .containsExactly("member3_1", "member3_2", "member3_3");
+    }
+
+    @Test
+    public void teamsArePagedNotMemberRows() throws Exception {
+        Team team = new Team("withManyMembers");
+        em.persist(team);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("many" + i, i, team));
+        }
+        em.persist(new Team("withoutMembers"));
+        em.flush();
+        em.clear();
+
+        long total = teamRepository.count();
+        Page<TeamMembersDTO> page = teamRepository.searchTeamsWithMembers(PageRequest.of(0, 1));
+
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getTotalElements()).isEqualTo(total);
+        TeamMembersDTO last = teamRepository.searchTeamsWithMembers(PageRequest.of((int) total - 1, 1)).getContent().get(0);
+        assertThat(last.getTeamName()).isEqualTo("withoutMembers");
+        assertThat(last.getMembers()).isEmpty();
+    }
+}
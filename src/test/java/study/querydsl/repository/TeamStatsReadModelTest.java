@@ -0,0 +1,116 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamStatsDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.event.MemberState;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class TeamStatsReadModelTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TeamStatsReadModel readModel;
+    @Autowired
+    TeamAgeHistogram histogram;
+
+    Team teamA;
+    Team teamB;
+
+    @BeforeEach
+    public void before() throws Exception {
+        // 기동 시 비동기로 만드는 집계가 끝날 때까지
+        for (int i = 0; i < 100 && !histogram.isReady(); i++) {
+            Thread.sleep(50);
+        }
+        teamA = new Team("statsTeamA");
+        teamB = new Team("statsTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("stats1", 10, teamA));
+        em.persist(new Member("stats2", 20, teamA));
+        em.persist(new Member("stats3", 30, teamB));
+        em.persist(new Member("stats4", 40, teamB));
+        em.flush();
+        em.clear();
+        // 같은 트랜잭션에서 다시 집계 -> 아직 커밋 안 된 위 회원도 보임
+        histogram.rebuild();
+    }
+
+    @Test
+    public void sameAsGroupBy() throws Exception {
+        List<Tuple> groupBy = new JPAQueryFactory(em)
+                .select(team.name, member.count(), member.age.sum(), member.age.avg(), member.age.min(), member.age.max())
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.startsWith("stats"))
+                .groupBy(team.name)
+                .orderBy(team.name.asc())
+                .fetch();
+
+        List<TeamStatsDTO> stats = stats();
+        assertThat(stats).hasSize(groupBy.size());
+        for (int i = 0; i < stats.size(); i++) {
+            Tuple expected = groupBy.get(i);
+            TeamStatsDTO actual = stats.get(i);
+            assertThat(actual.getTeamName()).isEqualTo(expected.get(team.name));
+            assertThat(actual.getCount()).isEqualTo(expected.get(member.count()));
+            assertThat(actual.getAgeSum()).isEqualTo(expected.get(member.age.sum()).longValue());
+            assertThat(actual.getAgeAvg()).isEqualTo(expected.get(member.age.avg()));
+            assertThat(actual.getAgeMin()).isEqualTo(expected.get(member.age.min()));
+            assertThat(actual.getAgeMax()).isEqualTo(expected.get(member.age.max()));
+        }
+    }
+
+    @Test
+    public void committedChangesAreApplied() throws Exception {
+        // stats1 (10) 이 teamB 로 이동, stats4 (40) 삭제, stats5 (50) 가 teamA 에 추가
+        histogram.onMemberChangeCommitted(new MemberChangedEvent(-1L,
+                new MemberState("stats1", 10, teamA.getId(), "statsTeamA"),
+                new MemberState("stats1", 10, teamB.getId(), "statsTeamB"), false));
+        histogram.onMemberChangeCommitted(new MemberChangedEvent(-2L,
+                new MemberState("stats4", 40, teamB.getId(), "statsTeamB"), null, false));
+        histogram.onMemberChangeCommitted(new MemberChangedEvent(-3L, null,
+                new MemberState("stats5", 50, teamA.getId(), "statsTeamA"), false));
+
+        List<TeamStatsDTO> stats = stats();
+        assertThat(stats).extracting(TeamStatsDTO::getTeamName).containsExactly("statsTeamA", "statsTeamB");
+        assertThat(stats).extracting(TeamStatsDTO::getCount).containsExactly(2L, 2L);
+        assertThat(stats).extracting(TeamStatsDTO::getAgeMin).containsExactly(20, 10);
+        assertThat(stats).extracting(TeamStatsDTO::getAgeMax).containsExactly(50, 30);
+        assertThat(stats).extracting(TeamStatsDTO::getAgeAvg).containsExactly(35.0, 20.0);
+    }
+
+    @Test
+    public void emptyTeamIsRemoved() throws Exception {
+        histogram.onMemberChangeCommitted(new MemberChangedEvent(-1L,
+                new MemberState("stats3", 30, teamB.getId(), "statsTeamB"), null, false));
+        histogram.onMemberChangeCommitted(new MemberChangedEvent(-2L,
+                new MemberState("stats4", 40, teamB.getId(), "statsTeamB"), null, false));
+
+        assertThat(stats()).extracting(TeamStatsDTO::getTeamName).containsExactly("statsTeamA");
+    }
+
+    private List<TeamStatsDTO> stats() {
+        List<TeamStatsDTO> stats = readModel.stats();
+        stats.removeIf(s -> s.getTeamName() == null || !s.getTeamName().startsWith("stats"));
+        return stats;
+    }
+}
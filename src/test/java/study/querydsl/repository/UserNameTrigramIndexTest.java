@@ -0,0 +1,76 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.UserSearchDTO;
+import study.querydsl.entity.UsersEntity;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QUsersEntity.usersEntity;
+
+// 벌크 변경이 커밋된 뒤에 다시 만드는지 보기 위해 테스트 트랜잭션 없이 실행하고 끝나면 직접 지움
+@SpringBootTest
+class UserNameTrigramIndexTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    UserNameTrigramIndex nameIndex;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("delete from users_entity where user_name like 'bulkrename%'");
+    }
+
+    @Test
+    public void bulkRenameIsSearchableAfterCommit() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        UsersEntity user = tx.execute(status -> {
+            UsersEntity u = new UsersEntity();
+            u.setUserName("bulkrenamebefore");
+            u.setUserAge(20);
+            em.persist(u);
+            return u;
+        });
+        awaitReady();
+
+        tx.executeWithoutResult(status -> new JPAQueryFactory(em)
+                .update(usersEntity)
+                .set(usersEntity.userName, "bulkrenameafter")
+                .where(usersEntity.userName.eq("bulkrenamebefore"))
+                .execute());
+        awaitReady();
+
+        // 커밋 전에 스캔했다면 새 이름의 trigram 이 없어서 빠짐
+        assertThat(nameIndex.candidates("renameafter")).contains(user.getId());
+        assertThat(userRepository.findSearch(search("renameafter"))).extracting(UsersEntity::getId)
+                .containsExactly(user.getId());
+    }
+
+    private void awaitReady() throws InterruptedException {
+        for (int i = 0; i < 100 && !nameIndex.isReady(); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(nameIndex.isReady()).isTrue();
+    }
+
+    private static UserSearchDTO search(String userName) {
+        UserSearchDTO search = new UserSearchDTO();
+        search.setUserName(userName);
+        return search;
+    }
+}
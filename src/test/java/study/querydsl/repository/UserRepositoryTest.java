@@ -0,0 +1,115 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.UserSearchDTO;
+import study.querydsl.entity.UsersEntity;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class UserRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    UserNameTrigramIndex nameIndex;
+
+    UsersEntity kim;
+    UsersEntity kimmy;
+    UsersEntity lee;
+
+    @BeforeEach
+    public void before() throws Exception {
+        // 기동 시 비동기로 만드는 색인이 준비될 때까지
+        for (int i = 0; i < 100 && !nameIndex.isReady(); i++) {
+            Thread.sleep(50);
+        }
+        kim = user("kimchulsoo", 20);
+        kimmy = user("kimmy", 30);
+        lee = user("leeyounghee", 40);
+    }
+
+    @Test
+    public void indexNarrowsCandidates() throws Exception {
+        em.flush();
+
+        // 다른 테스트에서 롤백된 사용자도 후보로 남아 있을 수 있음 (false positive 는 허용)
+        assertThat(nameIndex.candidates("kim")).contains(kim.getId(), kimmy.getId()).doesNotContain(lee.getId());
+        assertThat(nameIndex.candidates("chul")).contains(kim.getId()).doesNotContain(kimmy.getId(), lee.getId());
+        assertThat(nameIndex.candidates("xyz")).isEmpty();
+        // 3글자 미만은 색인 사용 안 함
+        assertThat(nameIndex.candidates("ki")).isNull();
+    }
+
+    @Test
+    public void findSearch() throws Exception {
+        // flush 전에 검색해도 찾아야 함
+        assertThat(userRepository.findSearch(search(null, "kim", null))).containsExactly(kim, kimmy);
+        assertThat(userRepository.findSearch(search(null, "kim", 25))).containsExactly(kimmy);
+        assertThat(userRepository.findSearch(search(kim.getId(), "kim", null))).containsExactly(kim);
+        assertThat(userRepository.findSearch(search(null, "ee", null))).containsExactly(lee);
+        assertThat(userRepository.findSearch(search(null, "nobody", null))).isEmpty();
+    }
+
+    @Test
+    public void renameAndDelete() throws Exception {
+        kimmy.setUserName("parkjimin");
+        em.remove(lee);
+
+        assertThat(userRepository.findSearch(search(null, "park", null))).containsExactly(kimmy);
+        // 이전 이름의 trigram 이 남아 있어도 contains 로 걸러짐
+        assertThat(userRepository.findSearch(search(null, "kimmy", null))).isEmpty();
+        assertThat(userRepository.findSearch(search(null, "young", null))).isEmpty();
+    }
+
+    @Test
+    public void sameResultAsLikeScan() throws Exception {
+        for (String query : new String[]{"kim", "im", "mmy", "e", "hee", "oo", "kimchulsoo", "zzz"}) {
+            List<UsersEntity> expected = em.createQuery(
+                    "select u from UsersEntity u where u.userName like :name order by u.id", UsersEntity.class)
+                    .setParameter("name", "%" + query + "%")
+                    .getResultList();
+
+            assertThat(userRepository.findSearch(search(null, query, null))).as(query).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void streamAllRejectsInvalidArguments() throws Exception {
+        // 스트림을 읽는 도중이 아니라 호출할 때 바로 실패 (@Repository 예외 변환으로 InvalidDataAccessApiUsageException)
+        assertThatThrownBy(() -> userRepository.streamAll(100, 0))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> userRepository.streamAll(0, 100))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    private UsersEntity user(String name, int age) {
+        UsersEntity user = new UsersEntity();
+        user.setUserName(name);
+        user.setUserAge(age);
+        em.persist(user);
+        return user;
+    }
+
+    private UserSearchDTO search(Long userId, String userName, Integer userAge) {
+        UserSearchDTO search = new UserSearchDTO();
+        search.setUserId(userId);
+        search.setUserName(userName);
+        search.setUserAge(userAge);
+        return search;
+    }
+}
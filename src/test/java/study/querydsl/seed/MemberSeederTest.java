@@ -0,0 +1,95 @@
+package study.querydsl.seed;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import study.querydsl.entity.Member;
+import study.querydsl.event.BulkChangedEvent;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 청크마다 커밋되는지 보기 위해 테스트 트랜잭션 없이 실행하고 끝나면 직접 지움
+// (시드 전 최대 id 보다 큰 행 = 이 테스트가 넣은 행)
+@SpringBootTest
+class MemberSeederTest {
+
+    @Autowired
+    MemberSeeder memberSeeder;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    ApplicationEventPublisher publisher;
+
+    long memberIdBefore;
+    long teamIdBefore;
+
+    @BeforeEach
+    public void before() {
+        memberIdBefore = jdbcTemplate.queryForObject("select coalesce(max(member_id), 0) from member", Long.class);
+        teamIdBefore = jdbcTemplate.queryForObject("select coalesce(max(team_id), 0) from team", Long.class);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("delete from member where member_id > ?", memberIdBefore);
+        jdbcTemplate.update("delete from team where team_id > ?", teamIdBefore);
+        // MemberSeeder 와 같이 JDBC 로 바꿨으므로 캐시 등은 벌크 변경으로 처리
+        publisher.publishEvent(new BulkChangedEvent("team"));
+        publisher.publishEvent(new BulkChangedEvent("member"));
+    }
+
+    @Test
+    public void roundRobin() throws Exception {
+        SeedProperties properties = new SeedProperties();
+        properties.setMembers(10);
+        properties.setChunkSize(3);
+
+        SeedReport report = memberSeeder.seed(properties);
+
+        assertThat(report.getChunks()).isEqualTo(4);
+        // 호출한 쪽 트랜잭션 없이 다른 커넥션에서 보임 -> 커밋됨
+        List<Map<String, Object>> result = jdbcTemplate.queryForList(
+                "select t.name, count(*) as members from member m join team t on t.team_id = m.team_id"
+                        + " where m.member_id > ? group by t.name order by t.name", memberIdBefore);
+        assertThat(result).extracting(r -> r.get("NAME")).containsExactly("teamA", "teamB");
+        assertThat(result).extracting(r -> r.get("MEMBERS")).containsExactly(5L, 5L);
+
+        // 시퀀스 블록으로 받은 id 이후에도 JPA 저장이 충돌하지 않음
+        memberRepository.save(new Member("afterSeed", 10));
+        assertThat(committedMembers()).isEqualTo(11);
+    }
+
+    @Test
+    public void zipf() throws Exception {
+        SeedProperties properties = new SeedProperties();
+        properties.setMembers(2000);
+        properties.setTeams(5);
+        properties.setDistribution(TeamDistribution.ZIPF);
+
+        memberSeeder.seed(properties);
+
+        assertThat(committedMembers()).isEqualTo(2000);
+        // 1/k 분포 -> teamA 가 teamE 의 약 5배
+        assertThat(committedMembers("teamA")).isGreaterThan(committedMembers("teamE") * 3);
+    }
+
+    private long committedMembers() {
+        return jdbcTemplate.queryForObject("select count(*) from member where member_id > ?", Long.class, memberIdBefore);
+    }
+
+    private long committedMembers(String teamName) {
+        return jdbcTemplate.queryForObject("select count(*) from member m join team t on t.team_id = m.team_id"
+                + " where m.member_id > ? and t.team_id > ? and t.name = ?", Long.class, memberIdBefore, teamIdBefore, teamName);
+    }
+}
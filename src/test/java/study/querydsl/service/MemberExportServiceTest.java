@@ -0,0 +1,61 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberExportServiceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberExportService memberExportService;
+
+    @BeforeEach
+    public void setData() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("team,B");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamB));
+    }
+
+    @Test
+    public void exportNdjson() throws Exception {
+        StringWriter writer = new StringWriter();
+
+        long count = memberExportService.export(new MemberSearchCondition(), ExportFormat.NDJSON, writer);
+
+        assertThat(count).isEqualTo(2);
+        String[] lines = writer.toString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"username\":\"member1\"", "\"teamName\":\"teamA\"");
+    }
+
+    @Test
+    public void exportCsv() throws Exception {
+        StringWriter writer = new StringWriter();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        long count = memberExportService.export(condition, ExportFormat.CSV, writer);
+
+        assertThat(count).isEqualTo(1);
+        String[] lines = writer.toString().split("\n");
+        assertThat(lines[0]).isEqualTo("memberId,username,age,teamId,teamName");
+        assertThat(lines[1]).matches("\\d+,member2,20,\\d+,\"team,B\"");
+    }
+}
@@ -0,0 +1,119 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import study.querydsl.event.BulkChangedEvent;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 청크마다 커밋되는지 보기 위해 테스트 트랜잭션 없이 실행하고 끝나면 직접 지움
+@SpringBootTest(properties = "member.import.chunk-size=2")
+@RecordApplicationEvents
+class MemberImportServiceTest {
+
+    @Autowired
+    MemberImportService memberImportService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    ApplicationEvents events;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("delete from member where username like 'import-%'");
+        jdbcTemplate.update("delete from team where name like 'import-%'");
+    }
+
+    @Test
+    public void importInChunks() throws Exception {
+        String tooLong = "import-" + String.join("", Collections.nCopies(300, "x"));
+        String ndjson = String.join("\n",
+                "{\"type\":\"team\",\"name\":\"import-teamA\"}",
+                "{\"type\":\"member\",\"username\":\"import-m1\",\"age\":10,\"teamName\":\"import-teamA\"}",
+                "not json",
+                "{\"type\":\"member\",\"username\":\"import-m2\",\"age\":20,\"teamName\":\"import-teamB\"}",
+                "{\"type\":\"member\",\"username\":\"import-m3\",\"age\":30}",
+                "",
+                "{\"type\":\"member\",\"username\":\"" + tooLong + "\",\"age\":1,\"teamName\":\"import-teamC\"}",
+                "{\"type\":\"member\",\"username\":\"import-m4\",\"age\":40,\"teamName\":\"import-teamA\"}");
+
+        MemberImportReport report = memberImportService.importNdjson(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        // 청크 : [1, 2] [3, 4] [5, 7] [8]
+        assertThat(report.getLines()).isEqualTo(8);
+        assertThat(report.getChunks()).isEqualTo(4);
+        assertThat(report.getMembers()).isEqualTo(3);
+        assertThat(report.getTeamsCreated()).isEqualTo(2);
+        assertThat(report.getInvalidLines()).isEqualTo(1);
+        assertThat(report.getFailedChunks()).isEqualTo(1);
+        assertThat(report.getFailedMembers()).isEqualTo(2);
+        assertThat(report.isCompleted()).isTrue();
+
+        // 잘못된 줄이 있던 청크와 insert 가 실패한 청크만 남음
+        List<MemberImportReport.ChunkReport> errors = report.getChunkErrors();
+        assertThat(errors).extracting(MemberImportReport.ChunkReport::getChunk).containsExactly(1, 2);
+        assertThat(errors.get(0).getErrors()).hasSize(1).allMatch(e -> e.startsWith("line 3: "));
+        assertThat(errors.get(0).getFailure()).isNull();
+        assertThat(errors.get(1).getFromLine()).isEqualTo(5);
+        assertThat(errors.get(1).getToLine()).isEqualTo(7);
+        assertThat(errors.get(1).getFailure()).isNotNull();
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "select m.username, t.name from member m left join team t on t.team_id = m.team_id"
+                        + " where m.username like 'import-%' order by m.username");
+        assertThat(rows).extracting(r -> r.get("USERNAME")).containsExactly("import-m1", "import-m2", "import-m4");
+        assertThat(rows).extracting(r -> r.get("NAME")).containsExactly("import-teamA", "import-teamB", "import-teamA");
+        // 실패한 청크에서 만든 팀은 같이 롤백
+        assertThat(jdbcTemplate.queryForObject("select count(*) from team where name like 'import-%'", Long.class))
+                .isEqualTo(2);
+        // 커밋된 청크마다 : 회원은 청크 1, 2, 4 / 팀은 teamA, teamB 를 만든 청크 1, 2
+        assertThat(events.stream(BulkChangedEvent.class)).extracting(BulkChangedEvent::getTable)
+                .containsExactly("team", "member", "team", "member", "member");
+    }
+
+    @Test
+    public void nonObjectLinesAreInvalid() throws Exception {
+        String ndjson = String.join("\n",
+                "null",
+                "[1]",
+                "5",
+                "{\"type\":\"member\",\"username\":\"import-m1\",\"age\":10}");
+
+        MemberImportReport report = memberImportService.importNdjson(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.getInvalidLines()).isEqualTo(3);
+        assertThat(report.getMembers()).isEqualTo(1);
+        assertThat(report.isCompleted()).isTrue();
+        assertThat(report.getChunkErrors()).flatExtracting(MemberImportReport.ChunkReport::getErrors)
+                .anyMatch(e -> e.startsWith("line 1: "));
+    }
+
+    @Test
+    public void existingTeamIsReused() throws Exception {
+        jdbcTemplate.update("insert into team (team_id, name) values (next value for team_seq, 'import-existing')");
+        String ndjson = "{\"type\":\"team\",\"name\":\"import-existing\"}\n"
+                + "{\"username\":\"import-m1\",\"age\":10,\"teamName\":\"import-existing\"}\n";
+
+        MemberImportReport report = memberImportService.importNdjson(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.getMembers()).isEqualTo(1);
+        assertThat(report.getTeamsCreated()).isZero();
+        assertThat(report.getChunkErrors()).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from team where name = 'import-existing'", Long.class))
+                .isEqualTo(1);
+    }
+}